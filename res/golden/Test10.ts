@@ -0,0 +1,25 @@
+/**
+ * 测试单例 & 匿名类字段
+ */
+export class Test10 {
+
+    public static INSTANCE: test.Test10 = new test.Test10();
+
+    private count: number;
+
+    private counter: java.lang.Runnable = ((__this) => new class implements java.lang.Runnable {
+
+        /* @Override */
+        public run(): void {
+            count++;
+        }
+    }())(this);
+
+    public static getInstance(): test.Test10 {
+        return INSTANCE;
+    }
+
+    public start(): void {
+        counter.run();
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * 测试整数运算
+ */
+export class Test11 {
+
+    private total: number;
+
+    private big: number;
+
+    public mix(a: number, b: number, d: number, l: number): number {
+        let product: number = a * b;
+        let quotient: number = a / b;
+        let truncated: number = Math.floor(d);
+        let unsigned: number = a >>> 3;
+        let narrow: number = <number>a;
+        let tiny: number = <number>d;
+        let longQuotient: number = l / 3;
+        let half: number = d / 2;
+        a *= b;
+        a /= 2;
+        a += d;
+        total /= b;
+        total >>>= 1;
+        big /= 2;
+        return product + quotient + truncated + unsigned + narrow + tiny + Math.floor(longQuotient) + Math.floor(half) + a;
+    }
+}
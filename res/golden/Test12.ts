@@ -0,0 +1,47 @@
+/**
+ * 测试多维数组 & 可变参数
+ */
+export class Test12 {
+
+    private counts: number[] = new number[4];
+
+    private grid: number[][] = new number[3][4];
+
+    private rows: number[][] = new number[2][];
+
+    private cube: number[][][] = new number[size()][2][3];
+
+    private bytes: number[] = { 1, 2, 3 };
+
+    private table: number[][] = { { 1, 2 }, { 3 } };
+
+    private flags: boolean[] = { true };
+
+    private static size(): number {
+        return 1;
+    }
+
+    public square(n: number): number[][] {
+        return new number[n * n][n * n];
+    }
+
+    public jagged(n: number): number[][] {
+        return new number[n][size()];
+    }
+
+    public static sum(...values: number[]): number {
+        let total: number = 0;
+        for (let value: number : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    public first(name: string, ...values: number[]): number {
+        return values[0];
+    }
+
+    public head(...rows: number[][]): number[] {
+        return rows[0];
+    }
+}
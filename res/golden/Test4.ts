@@ -0,0 +1,9 @@
+/**
+ * 接口测试
+ */
+export interface Test4 {
+
+    a(): void;
+
+    b(): number;
+}
@@ -0,0 +1,27 @@
+/**
+ * 测试整数运算
+ */
+export class Test11 {
+
+    private total: number;
+
+    private big: number;
+
+    public mix(a: number, b: number, d: number, l: number): number {
+        let product: number = Math.imul(a, b);
+        let quotient: number = (a / b | 0);
+        let truncated: number = (d | 0);
+        let unsigned: number = (a >>> 3 | 0);
+        let narrow: number = (a << 16 >> 16);
+        let tiny: number = (d << 24 >> 24);
+        let longQuotient: number = Math.trunc(l / 3);
+        let half: number = d / 2;
+        a = Math.imul(a, b);
+        a = (a / 2 | 0);
+        a = (a + d | 0);
+        total = (total / b | 0);
+        total = (total >>> 1 | 0);
+        big = Math.trunc(big / 2);
+        return product + quotient + truncated + unsigned + narrow + tiny + (longQuotient | 0) + (half | 0) + a;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * 测试多维数组 & 可变参数
+ */
+export class Test12 {
+
+    private counts: Int32Array = new Int32Array(4);
+
+    private grid: Float64Array[] = Array.from({length: 3}, () => new Float64Array(4));
+
+    private rows: Float32Array[] = new Array<Float32Array>(2).fill(null);
+
+    private cube: Float64Array[][] = Array.from({length: size()}, () => Array.from({length: 2}, () => new Float64Array(3)));
+
+    private bytes: Int8Array = Int8Array.of(1, 2, 3);
+
+    private table: Int16Array[] = [Int16Array.of(1, 2), Int16Array.of(3)];
+
+    private flags: boolean[] = { true };
+
+    private static size(): number {
+        return 1;
+    }
+
+    public square(n: number): Int32Array[] {
+        return ((d0, d1) => Array.from({length: d0}, () => new Int32Array(d1)))(n * n, n * n);
+    }
+
+    public jagged(n: number): Int32Array[] {
+        return ((d0, d1) => Array.from({length: d0}, () => new Int32Array(d1)))(n, size());
+    }
+
+    public static sum(...__values: number[]): number {
+        let values = Int32Array.from(__values);
+        let total: number = 0;
+        for (let value: number : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    public first(name: string, ...__values: number[]): number {
+        let values = Float64Array.from(__values);
+        return values[0];
+    }
+
+    public head(...rows: Int32Array[]): Int32Array {
+        return rows[0];
+    }
+}
@@ -0,0 +1,31 @@
+#!/bin/sh
+# Startup of a single-file conversion with and without the AppCDS archive.
+# usage: scripts/startup-benchmark.sh [runs] [file.java]   (run ./gradlew cdsArchive first)
+DIR=$(cd "$(dirname "$0")/.." && pwd)
+RUNS=${1:-20}
+SOURCE=${2:-$DIR/src/main/java/test/Test1.java}
+CDS_DIR="$DIR/build/java2ts-cds"
+OUT=$(mktemp -d)
+trap 'rm -rf "$OUT"' EXIT
+
+if [ ! -f "$CDS_DIR/java2ts.jsa" ]; then
+    echo "no $CDS_DIR/java2ts.jsa, run ./gradlew cdsArchive first" >&2
+    exit 1
+fi
+
+# prints the median wall time in ms of RUNS conversions, after 2 warm-up runs
+measure() {
+    i=0
+    while [ $i -lt $((RUNS + 2)) ]; do
+        start=$(date +%s%N)
+        "${JAVA:-java}" "$@" -cp "$CDS_DIR/lib/java2ts.jar" Main --out="$OUT" "$SOURCE" > /dev/null 2>&1 || exit 1
+        end=$(date +%s%N)
+        [ $i -ge 2 ] && echo $(((end - start) / 1000000))
+        i=$((i + 1))
+    done | sort -n | awk '{ t[NR] = $1 } END { print t[int((NR + 1) / 2)] }'
+}
+
+cd "$DIR" || exit 1
+echo "$RUNS runs of $SOURCE, median wall time"
+echo "default CDS only: $(measure -Xshare:auto) ms"
+echo "AppCDS archive:   $(measure -XX:SharedArchiveFile="$CDS_DIR/java2ts.jsa" -Xshare:auto) ms"
@@ -0,0 +1,298 @@
+import print.JavacTypeResolver;
+import print.PassManager;
+import print.TSPrinterConfiguration;
+import util.SourceReader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Converts every fixture (src/main/java/test/Test*.java and the widgets of res/java) and compares the output with
+ * the checked in res/golden/NAME.ts, then measures the conversion of each fixture after a warmup and fails when its
+ * allocation per conversion exceeds its budget in res/golden/budgets.properties by more than the tolerance. Times are
+ * measured and printed too but only checked against their budgets with --time-budgets, they vary by about 2x between
+ * runs of one machine, too much for check. The fixtures of {@link #MODES} are converted once more with the options of
+ * each mode and compared with res/golden/MODE/NAME.ts, not measured. Run with ./gradlew goldenTest (part of check).
+ * <p>
+ * args: [--update] [--tolerance=PERCENT] [--time-budgets] [--time-tolerance=PERCENT] [--warmup=N] [--iterations=N]
+ * [--no-budgets]
+ * <br>--update: write the current outputs and measurements as the new expected files and budgets
+ * <br>--tolerance=PERCENT: how far over its budget a fixture may get, default 25
+ * <br>--time-budgets: fail on times over their budgets too
+ * <br>--time-tolerance=PERCENT: the tolerance of times, default the one of allocations; times of one machine vary far
+ * more than its allocations, budgets of another machine rarely hold
+ * <br>--warmup=N: rounds over all fixtures before measuring, default 30
+ * <br>--iterations=N: measured conversions of each fixture, in rounds over all fixtures so a slow moment of the
+ * machine hits one round of every fixture rather than all rounds of one; the lowest round median is compared, default 100
+ * <br>--no-budgets: only compare outputs
+ */
+public class GoldenTest {
+    private static final Path GOLDEN_DIR = Paths.get("res/golden");
+    private static final Path BUDGETS_FILE = GOLDEN_DIR.resolve("budgets.properties");
+    private static final int ROUNDS = 5;
+    /**
+     * mode (the directory of its expected files under res/golden), options as Main takes them, fixtures
+     */
+    private static final String[][] MODES = {
+            {"passes", "--passes=all", "Test6.ts Test10.ts DatePicker.ts"},
+            {"int-semantics", "--int-semantics --javac", "Test11.ts"},
+            {"typed-arrays", "--typed-arrays", "Test12.ts"},
+            {"typed-arrays-int-semantics", "--typed-arrays --int-semantics --javac", "Test12.ts"},
+    };
+
+    public static void main(String[] args) throws Exception {
+        boolean update = false;
+        double tolerance = 25;
+        Double timeTolerance = null;
+        int warmup = 30;
+        int iterations = 100;
+        boolean budgets = true;
+        boolean timeBudgets = false;
+        for (String arg : args) {
+            if (arg.equals("--update")) {
+                update = true;
+            } else if (arg.startsWith("--tolerance=")) {
+                tolerance = Double.parseDouble(arg.substring("--tolerance=".length()));
+            } else if (arg.equals("--time-budgets")) {
+                timeBudgets = true;
+            } else if (arg.startsWith("--time-tolerance=")) {
+                timeTolerance = Double.parseDouble(arg.substring("--time-tolerance=".length()));
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else if (arg.equals("--no-budgets")) {
+                budgets = false;
+            } else {
+                throw new IllegalArgumentException("unknown argument " + arg);
+            }
+        }
+
+        Map<String, Path> fixtureFiles = readFixtures();
+        Map<String, String> fixtures = new LinkedHashMap<>();
+        for (Map.Entry<String, Path> fixtureFile : fixtureFiles.entrySet()) {
+            fixtures.put(fixtureFile.getKey(), new String(Files.readAllBytes(fixtureFile.getValue()), StandardCharsets.UTF_8));
+        }
+        Java2TSConverter converter = new Java2TSConverter();
+        PrintStream out = System.out;
+        List<String> failures = new ArrayList<>();
+
+        Map<String, String> outputs = new LinkedHashMap<>();
+        silenced(out, () -> fixtures.forEach((name, javaSource) -> outputs.put(name, converter.convert(javaSource))));
+        compare(GOLDEN_DIR, "", outputs, update, failures);
+        out.println("golden outputs: " + outputs.size() + " fixtures, " + failures.size() + " differ");
+
+        for (String[] mode : MODES) {
+            List<String> names = Arrays.asList(mode[2].split(" "));
+            List<Path> javaFiles = new ArrayList<>();
+            names.forEach(name -> javaFiles.add(fixtureFiles.get(name)));
+            Java2TSConverter modeConverter = new Java2TSConverter(configurationOf(mode[1], javaFiles), new SourceReader());
+            Map<String, String> modeOutputs = new LinkedHashMap<>();
+            silenced(out, () -> names.forEach(name -> modeOutputs.put(name, modeConverter.convert(fixtures.get(name)))));
+            int failed = failures.size();
+            compare(GOLDEN_DIR.resolve(mode[0]), mode[0] + "/", modeOutputs, update, failures);
+            out.println("golden outputs " + mode[1] + ": " + modeOutputs.size() + " fixtures, " + (failures.size() - failed) + " differ");
+        }
+
+        if (budgets) {
+            Properties budget = new Properties();
+            if (!update && Files.exists(BUDGETS_FILE)) {
+                try (Reader reader = Files.newBufferedReader(BUDGETS_FILE, StandardCharsets.UTF_8)) {
+                    budget.load(reader);
+                }
+            }
+            List<String> measured = new ArrayList<>();
+            measured.add("# per conversion after warmup, lowest of the round medians: micros, allocated bytes. ./gradlew goldenTest -PgoldenUpdate rewrites");
+            int rounds = warmup;
+            silenced(out, () -> {
+                for (int i = 0; i < rounds; i++) {
+                    fixtures.values().forEach(converter::convert);
+                }
+            });
+            Map<String, long[]> lowest = new LinkedHashMap<>();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (Map.Entry<String, String> fixture : fixtures.entrySet()) {
+                    long[] measurement = measure(out, converter, fixture.getValue(), Math.max(1, iterations / ROUNDS));
+                    lowest.merge(fixture.getKey(), measurement,
+                            (a, b) -> new long[]{Math.min(a[0], b[0]), Math.min(a[1], b[1])});
+                }
+            }
+            out.println(String.format(Locale.ROOT, "%-16s %12s %12s %14s %14s", "fixture", "micros", "budget", "bytes", "budget"));
+            for (Map.Entry<String, long[]> fixture : lowest.entrySet()) {
+                long[] measurement = fixture.getValue();
+                String name = fixture.getKey();
+                measured.add(name + ".micros=" + measurement[0]);
+                measured.add(name + ".bytes=" + measurement[1]);
+                long microsBudget = Long.parseLong(budget.getProperty(name + ".micros", "0"));
+                long bytesBudget = Long.parseLong(budget.getProperty(name + ".bytes", "0"));
+                out.println(String.format(Locale.ROOT, "%-16s %12d %12s %14d %14s", name, measurement[0],
+                        microsBudget > 0 ? microsBudget : "-", measurement[1], bytesBudget > 0 ? bytesBudget : "-"));
+                if (timeBudgets) {
+                    checkBudget(failures, name, "time", measurement[0], microsBudget, timeTolerance != null ? timeTolerance : tolerance);
+                }
+                checkBudget(failures, name, "allocation", measurement[1], bytesBudget, tolerance);
+            }
+            if (update) {
+                Files.write(BUDGETS_FILE, measured, StandardCharsets.UTF_8);
+            }
+        }
+
+        if (update) {
+            out.println("golden files updated in " + GOLDEN_DIR);
+            return;
+        }
+        for (String failure : failures) {
+            out.println("FAILED " + failure);
+        }
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compares outputs with the expected files in dir, or writes them there with update.
+     */
+    private static void compare(Path dir, String prefix, Map<String, String> outputs, boolean update,
+                                List<String> failures) throws IOException {
+        for (Map.Entry<String, String> output : outputs.entrySet()) {
+            Path expectedFile = dir.resolve(output.getKey());
+            if (update) {
+                Files.createDirectories(dir);
+                Files.write(expectedFile, output.getValue().getBytes(StandardCharsets.UTF_8));
+                continue;
+            }
+            String expected = Files.exists(expectedFile) ? new String(Files.readAllBytes(expectedFile), StandardCharsets.UTF_8) : null;
+            String difference = expected == null ? "no " + expectedFile : firstDifference(expected, output.getValue());
+            if (difference != null) {
+                failures.add(prefix + output.getKey() + ": " + difference);
+            }
+        }
+    }
+
+    /**
+     * @param javaFiles the sources --javac analyzes
+     */
+    private static TSPrinterConfiguration configurationOf(String options, Collection<Path> javaFiles) throws IOException {
+        TSPrinterConfiguration configuration = new TSPrinterConfiguration();
+        for (String option : options.split(" ")) {
+            if (option.startsWith("--passes=")) {
+                configuration.setPassManager(PassManager.of(option.substring("--passes=".length())));
+            } else if (option.equals("--int-semantics")) {
+                configuration.setIntegerSemantics(true);
+            } else if (option.equals("--typed-arrays")) {
+                configuration.setTypedArrays(true);
+            } else if (option.equals("--javac")) {
+                // as Main runs it, so the expected types are the ones of a ./gradlew run
+                JavacTypeResolver typeResolver = JavacTypeResolver.analyze(javaFiles,
+                        Arrays.asList("-sourcepath", "res/java"), StandardCharsets.UTF_8);
+                if (!typeResolver.getErrors().isEmpty()) {
+                    throw new IllegalStateException("javac: " + typeResolver.getErrors());
+                }
+                configuration.setTypeResolver(typeResolver);
+            } else {
+                throw new IllegalArgumentException("unknown option " + option);
+            }
+        }
+        return configuration;
+    }
+
+    /**
+     * @return source file by expected file name, in a stable order
+     */
+    private static Map<String, Path> readFixtures() throws IOException {
+        List<Path> javaFiles = new ArrayList<>();
+        try (DirectoryStream<Path> tests = Files.newDirectoryStream(Paths.get("src/main/java/test"), "Test*.java")) {
+            tests.forEach(javaFiles::add);
+        }
+        javaFiles.sort(null);
+        javaFiles.addAll(Arrays.asList(Paths.get("res/java/android/widget/DatePicker.java"),
+                Paths.get("res/java/android/widget/TimePicker.java")));
+        Map<String, Path> fixtures = new LinkedHashMap<>();
+        for (Path javaFile : javaFiles) {
+            String fileName = javaFile.getFileName().toString();
+            fixtures.put(fileName.substring(0, fileName.length() - ".java".length()) + ".ts", javaFile);
+        }
+        return fixtures;
+    }
+
+    /**
+     * @return median micros and mean allocated bytes (0 when the JVM can't count them) per conversion
+     */
+    private static long[] measure(PrintStream out, Java2TSConverter converter, String javaSource, int iterations) {
+        long[] nanos = new long[iterations];
+        long[] allocated = new long[1];
+        silenced(out, () -> {
+            long allocatedBefore = allocatedBytes();
+            for (int i = 0; i < iterations; i++) {
+                long begin = System.nanoTime();
+                converter.convert(javaSource);
+                nanos[i] = System.nanoTime() - begin;
+            }
+            allocated[0] = allocatedBytes() - allocatedBefore;
+        });
+        Arrays.sort(nanos);
+        return new long[]{nanos[iterations / 2] / 1000, Math.max(0, allocated[0]) / iterations};
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static void checkBudget(List<String> failures, String name, String what, long value, long budget, double tolerance) {
+        if (budget > 0 && value > budget * (1 + tolerance / 100)) {
+            failures.add(String.format(Locale.ROOT, "%s: %s %d is %.0f%% over the budget %d", name, what, value,
+                    (value - budget) * 100.0 / budget, budget));
+        }
+    }
+
+    private static String firstDifference(String expected, String actual) {
+        if (expected.equals(actual)) return null;
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        for (int i = 0; i < Math.max(expectedLines.length, actualLines.length); i++) {
+            String expectedLine = i < expectedLines.length ? expectedLines[i] : "<end>";
+            String actualLine = i < actualLines.length ? actualLines[i] : "<end>";
+            if (!expectedLine.equals(actualLine)) {
+                return "line " + (i + 1) + ": expected '" + expectedLine + "' but was '" + actualLine + "'";
+            }
+        }
+        return "differs in line ends";
+    }
+
+    /**
+     * Runs work with System.out, where the converter prints its not support warnings, discarded.
+     */
+    private static void silenced(PrintStream out, Runnable work) {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try {
+            work.run();
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import print.TSPrinter;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of printing already parsed compilation units, the emitter alone.
+ * Run with ./gradlew jmh, on this and an older commit to compare emitter changes;
+ * -PjmhInlining adds the JIT compilation and inlining log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PrintBenchmark {
+
+    /**
+     * a java file under res/java, or "large" for a generated class with a few thousand statements
+     */
+    @Param({"android/widget/DatePicker.java", "android/widget/TimePicker.java", "large"})
+    public String source;
+
+    private CompilationUnit compilationUnit;
+    private TSPrinter printer;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String code = source.equals("large") ? largeSource(400)
+                : new String(Files.readAllBytes(Paths.get("res/java", source)), StandardCharsets.UTF_8);
+        compilationUnit = JavaParser.parse(code);
+        printer = new TSPrinter();
+        // not support warnings go to System.out
+        out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public String print() {
+        return printer.print(compilationUnit);
+    }
+
+    private static String largeSource(int methods) {
+        StringBuilder sb = new StringBuilder("package bench;\n\npublic class Large {\n");
+        for (int i = 0; i < methods; i++) {
+            sb.append("    /** method ").append(i).append(" */\n")
+                    .append("    public int method").append(i).append("(int a, String s) {\n")
+                    .append("        // sum things up\n")
+                    .append("        int sum = 0;\n")
+                    .append("        for (int i = 0; i < a; i++) {\n")
+                    .append("            if (i % 3 == 0 && s != null) sum += s.length() * i;\n")
+                    .append("            else sum -= (int) (i / 2.0);\n")
+                    .append("        }\n")
+                    .append("        String text = \"value: \" + sum + (a > 0 ? \"+\" : \"-\");\n")
+                    .append("        return text.isEmpty() ? -1 : method").append(i).append("(sum - 1, text);\n")
+                    .append("    }\n\n");
+        }
+        return sb.append("}\n").toString();
+    }
+}
@@ -0,0 +1,95 @@
+import util.ConversionEvents;
+import util.IOExecutors;
+import util.OutputWriter;
+import util.Profiler;
+import util.SourceReader;
+
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Converts many files as a pipeline: read on the I/O executor, parse and print on a core-sized pool,
+ * write back on the I/O executor.
+ */
+public class BatchConverter implements AutoCloseable {
+    private final Java2TSConverter converter;
+    private final SourceReader sourceReader;
+    private final OutputWriter outputWriter;
+    private final ExecutorService ioExecutor;
+    private final ExecutorService cpuExecutor;
+    private final List<CompletableFuture<Void>> pending = new ArrayList<>();
+    private Profiler profiler;
+
+    /**
+     * @param virtualThreadIO read and write files on virtual threads, when the running JDK supports them
+     */
+    public BatchConverter(Java2TSConverter converter, SourceReader sourceReader, OutputWriter outputWriter, boolean virtualThreadIO) {
+        this.converter = converter;
+        this.sourceReader = sourceReader;
+        this.outputWriter = outputWriter;
+        this.ioExecutor = IOExecutors.newIOExecutor(virtualThreadIO);
+        this.cpuExecutor = IOExecutors.newCpuExecutor();
+    }
+
+    /**
+     * @param profiler profiler to record the stages of every file submitted afterwards, null for none
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public void submit(Path javaFile, Path outFile) {
+        Profiler.FileProfile fileProfile = profiler == null ? null : profiler.getFile(javaFile.toString());
+        CompletableFuture<Void> future = CompletableFuture
+                .supplyAsync(() -> {
+                    try (Profiler.Scope ignored = Profiler.enter(fileProfile)) {
+                        long profileBegin = Profiler.begin();
+                        CharBuffer javaSource = sourceReader.read(javaFile);
+                        Profiler.end(Profiler.Stage.READ, profileBegin);
+                        return javaSource;
+                    } catch (Exception e) {
+                        throw new RuntimeException("read " + javaFile + " failed", e);
+                    }
+                }, ioExecutor)
+                .thenApplyAsync(javaSource -> {
+                    try (Profiler.Scope ignored = Profiler.enter(fileProfile);
+                         ConversionEvents.FileScope ignoredFile = ConversionEvents.enterFile(javaFile.toString())) {
+                        return converter.convert(javaSource);
+                    }
+                }, cpuExecutor)
+                .thenAcceptAsync(tsSource -> {
+                    try (Profiler.Scope ignored = Profiler.enter(fileProfile)) {
+                        long profileBegin = Profiler.begin();
+                        outputWriter.write(outFile, tsSource);
+                        Profiler.end(Profiler.Stage.WRITE, profileBegin);
+                    } catch (Exception e) {
+                        throw new RuntimeException("write " + outFile + " failed", e);
+                    }
+                }, ioExecutor);
+        synchronized (pending) {
+            pending.add(future);
+        }
+    }
+
+    /**
+     * Waits for every submitted file, the first failure is thrown after all of them finished.
+     */
+    public void awaitAll() {
+        CompletableFuture<?>[] futures;
+        synchronized (pending) {
+            futures = pending.toArray(new CompletableFuture<?>[0]);
+            pending.clear();
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    @Override
+    public void close() {
+        ioExecutor.shutdown();
+        cpuExecutor.shutdown();
+    }
+}
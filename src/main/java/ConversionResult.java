@@ -0,0 +1,60 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TS code of one converted java source, with the not support warnings printed while converting it,
+ * or the error it failed with.
+ */
+public class ConversionResult {
+    private final String tsCode;
+    private final List<String> warnings;
+    private final boolean fromCache;
+    private final Throwable error;
+
+    public ConversionResult(String tsCode, List<String> warnings, boolean fromCache) {
+        this.tsCode = tsCode;
+        this.warnings = Collections.unmodifiableList(warnings);
+        this.fromCache = fromCache;
+        this.error = null;
+    }
+
+    private ConversionResult(Throwable error) {
+        this.tsCode = null;
+        this.warnings = Collections.emptyList();
+        this.fromCache = false;
+        this.error = error;
+    }
+
+    public static ConversionResult failed(Throwable error) {
+        return new ConversionResult(error);
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return why the conversion failed (a ParseProblemException for sources that don't parse), null if it didn't
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return the TS code, null if the conversion failed
+     */
+    public String getTsCode() {
+        return tsCode;
+    }
+
+    /**
+     * @return warnings as "reason :::: java code"
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+}
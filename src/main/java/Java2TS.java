@@ -1,16 +1,74 @@
 import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
 import com.github.javaparser.ast.CompilationUnit;
-import print.TSPrinter;
 import print.TSPrinterConfiguration;
+import util.CharBufferProvider;
+import util.SourceReader;
 
 import java.io.File;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.Map;
 
 /**
  * Created by faxin on 2017/8/27.
  */
 public class Java2TS {
+    private static final SourceReader sourceReader = new SourceReader();
+    private static final Java2TSConverter converter = new Java2TSConverter(new TSPrinterConfiguration(), sourceReader);
+
+    /**
+     * source files are read as UTF-8 unless their source root is given another charset here
+     */
+    public static SourceReader getSourceReader() {
+        return sourceReader;
+    }
+
+    /**
+     * shared converter with the default configuration, safe to use from many threads
+     */
+    public static Java2TSConverter getConverter() {
+        return converter;
+    }
+
     public static String convertClassToTSCode(File javaFile) throws Exception {
-        CompilationUnit compilationUnit = JavaParser.parse(javaFile);
-        return new TSPrinter(new TSPrinterConfiguration()).print(compilationUnit);
+        return converter.convert(javaFile);
+    }
+
+    public static String convertClassToTSCode(Path javaFile) throws Exception {
+        return converter.convert(javaFile);
+    }
+
+    public static String convertClassToTSCode(String javaSource) {
+        return converter.convert(javaSource);
+    }
+
+    public static String convertClassToTSCode(Reader javaSource) throws Exception {
+        return converter.convert(javaSource);
+    }
+
+    public static String convertClassToTSCode(CharBuffer javaSource) {
+        return converter.convert(javaSource);
+    }
+
+    /**
+     * Converts in-memory sources in parallel, see {@link Java2TSConverter#convertAll(Map)}.
+     *
+     * @param javaSources java source by path
+     * @return TS code, warnings or the error by path
+     */
+    public static Map<String, ConversionResult> convertAll(Map<String, ? extends CharSequence> javaSources) {
+        return converter.convertAll(javaSources);
+    }
+
+    static CompilationUnit parse(CharBuffer source) {
+        ParseResult<CompilationUnit> result = new JavaParser().parse(ParseStart.COMPILATION_UNIT, new CharBufferProvider(source));
+        if (result.isSuccessful() && result.getResult().isPresent()) {
+            return result.getResult().get();
+        }
+        throw new ParseProblemException(result.getProblems());
     }
 }
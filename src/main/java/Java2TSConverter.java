@@ -0,0 +1,185 @@
+import com.github.javaparser.ast.CompilationUnit;
+import print.TSPrintVisitor;
+import print.TSPrinterConfiguration;
+import util.BodyBlanker;
+import util.ConversionCache;
+import util.ConversionEvents;
+import util.ConverterStats;
+import util.Profiler;
+import util.ResolutionFacts;
+import util.SourceReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe converter, one instance can be shared and its convert methods called concurrently.
+ * <p>
+ * The configuration is snapshotted at construction, per-call state lives in a visitor taken from a pool.
+ */
+public class Java2TSConverter {
+    /**
+     * changes with the converter code, all classes next to this one, part of the conversion cache keys
+     */
+    public static final String VERSION = ConversionCache.versionOf(Java2TSConverter.class);
+
+    private final TSPrinterConfiguration configuration;
+    private final SourceReader sourceReader;
+    private final ConversionCache cache;
+    private final int maxPooledVisitors;
+    private final ConcurrentLinkedQueue<TSPrintVisitor> visitorPool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledVisitors = new AtomicInteger();
+
+    public Java2TSConverter() {
+        this(new TSPrinterConfiguration(), new SourceReader());
+    }
+
+    public Java2TSConverter(TSPrinterConfiguration configuration, SourceReader sourceReader) {
+        this(configuration, sourceReader, null);
+    }
+
+    /**
+     * @param cache conversion cache to look up before parsing, null for none
+     */
+    public Java2TSConverter(TSPrinterConfiguration configuration, SourceReader sourceReader, ConversionCache cache) {
+        this.configuration = configuration.snapshot();
+        this.sourceReader = sourceReader;
+        this.cache = cache;
+        this.maxPooledVisitors = Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    public TSPrinterConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public String convert(File javaFile) throws IOException {
+        return convertToResult(javaFile).getTsCode();
+    }
+
+    public ConversionResult convertToResult(File javaFile) throws IOException {
+        long profileBegin = Profiler.begin();
+        CharBuffer javaSource = sourceReader.read(javaFile.toPath());
+        Profiler.end(Profiler.Stage.READ, profileBegin);
+        try (ConversionEvents.FileScope ignored = ConversionEvents.enterFile(javaFile.getPath())) {
+            return convertToResult(javaSource);
+        }
+    }
+
+    public String convert(Path javaFile) throws IOException {
+        return convert(javaFile.toFile());
+    }
+
+    public String convert(String javaSource) {
+        return convert(CharBuffer.wrap(javaSource));
+    }
+
+    public String convert(Reader javaSource) throws IOException {
+        return convert(SourceReader.read(javaSource));
+    }
+
+    public String convert(CharBuffer javaSource) {
+        return convertToResult(javaSource).getTsCode();
+    }
+
+    public ConversionResult convertToResult(CharBuffer javaSource) {
+        long begin = System.nanoTime();
+        ConversionResult result = cache == null ? printToResult(parse(javaSource)) : convertCached(javaSource);
+        ConverterStats.get().fileConverted(System.nanoTime() - begin);
+        return result;
+    }
+
+    private ConversionResult convertCached(CharBuffer javaSource) {
+        String cacheKey = ConversionCache.key(VERSION, configuration.getFingerprint(), javaSource);
+        ConversionCache.Entry entry = null;
+        try {
+            entry = cache.get(cacheKey);
+        } catch (IOException e) {
+            System.out.print("[WARN] conversion cache read failed :::: " + e);
+        }
+        if (entry != null) {
+            for (String warning : entry.getWarnings()) {
+                System.out.print("[WARN] " + warning);
+            }
+            return new ConversionResult(entry.getTsCode(), entry.getWarnings(), true);
+        }
+
+        ResolutionFacts resolutionFacts = new ResolutionFacts();
+        ConversionResult result = ResolutionFacts.record(resolutionFacts, () -> printToResult(parse(javaSource)));
+        try {
+            cache.put(cacheKey, resolutionFacts, result.getTsCode(), result.getWarnings());
+        } catch (IOException e) {
+            System.out.print("[WARN] conversion cache write failed :::: " + e);
+        }
+        return result;
+    }
+
+    /**
+     * Converts sources in parallel on the common fork join pool, one failing source doesn't stop the others.
+     *
+     * @param javaSources java source by path, the path only tags the flight recorder events of the conversion, the
+     *                    warnings in the results aren't tagged, they're already grouped by path
+     * @return result by path, in the order of javaSources
+     */
+    public Map<String, ConversionResult> convertAll(Map<String, ? extends CharSequence> javaSources) {
+        Map<String, CompletableFuture<ConversionResult>> futures = new LinkedHashMap<>();
+        javaSources.forEach((path, javaSource) -> futures.put(path, CompletableFuture.supplyAsync(() -> {
+            try (ConversionEvents.FileScope ignored = ConversionEvents.enterFile(path)) {
+                return convertToResult(CharBuffer.wrap(javaSource));
+            } catch (RuntimeException e) {
+                return ConversionResult.failed(e);
+            }
+        })));
+        Map<String, ConversionResult> results = new LinkedHashMap<>();
+        futures.forEach((path, future) -> results.put(path, future.join()));
+        return results;
+    }
+
+    public String print(CompilationUnit compilationUnit) {
+        return printToResult(compilationUnit).getTsCode();
+    }
+
+    private CompilationUnit parse(CharBuffer javaSource) {
+        long profileBegin = Profiler.begin();
+        Object event = ConversionEvents.beginParse();
+        int sourceChars = javaSource.remaining();
+        try {
+            // declarations never look into bodies, don't spend parse time on them
+            return Java2TS.parse(configuration.isDeclarationOnly() ? BodyBlanker.blank(javaSource) : javaSource);
+        } finally {
+            ConversionEvents.endParse(event, sourceChars);
+            Profiler.end(Profiler.Stage.PARSE, profileBegin);
+        }
+    }
+
+    private ConversionResult printToResult(CompilationUnit compilationUnit) {
+        long profileBegin = Profiler.begin();
+        Object event = ConversionEvents.beginPrint();
+        TSPrintVisitor visitor = visitorPool.poll();
+        if (visitor == null) {
+            visitor = new TSPrintVisitor(configuration, compilationUnit);
+        } else {
+            pooledVisitors.decrementAndGet();
+            visitor.reset(compilationUnit);
+        }
+        compilationUnit.accept(visitor, null);
+        ConversionResult result = new ConversionResult(visitor.getSource(), visitor.getWarnings(), false);
+        // a visitor that threw is simply not given back
+        visitor.reset(null);
+        if (pooledVisitors.incrementAndGet() <= maxPooledVisitors) {
+            visitorPool.offer(visitor);
+        } else {
+            pooledVisitors.decrementAndGet();
+        }
+        ConversionEvents.endPrint(event, result.getTsCode().length());
+        Profiler.end(Profiler.Stage.EMIT, profileBegin);
+        return result;
+    }
+}
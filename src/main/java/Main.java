@@ -1,23 +1,290 @@
+import print.JavacTypeResolver;
+import print.PassManager;
+import print.RewriteRules;
+import print.SymbolTypeResolver;
+import print.TSPrinterConfiguration;
+import util.BufferPool;
+import util.ClassIndex;
+import util.ConversionCache;
+import util.ConverterStats;
+import util.OutputWriter;
+import util.Profiler;
+import util.RunReport;
+
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Created by faxin on 2017/8/27.
  */
 public class Main {
+    private static OutputWriter outputWriter = new OutputWriter(StandardCharsets.UTF_8, BufferPool.shared(),
+            Paths.get("build/java2ts/output-hashes"));
+
+    private static Java2TSConverter converter = Java2TS.getConverter();
+    private static Profiler profiler;
+    private static final Pattern PACKAGE_DECLARATION = Pattern.compile("\\s*package\\s+([\\w.]+)\\s*;");
+    private static final Pattern TYPE_OR_IMPORT = Pattern.compile(
+            "\\s*(import|public|final|abstract|class|interface|enum|@)\\b");
+    private static RunReport runReport;
+    private static String outExtension = ".ts";
+
+    /**
+     * args: [--virtual-threads] [--parallel-members=N] [--cache=DIR] [--profile[=FILE]] [--profile-top=N] [--jmx] [--declarations] [--javac[=CLASSPATH]] [--resolve-types[=SIZE]] [--class-index=FILE] [--rules=FILE] [--passes=NAMES] [--int-semantics] [--typed-arrays] [--out=DIR] [--shards=N] [className|file.java...]
+     * <br>--virtual-threads: read and write files on virtual threads (JDK 21+), parse and print on a core-sized pool
+     * <br>--parallel-members=N: print the members of types with at least N members in parallel
+     * <br>--cache=DIR: reuse conversions from the cache in DIR, which can be shared by many checkouts and processes
+     * <br>--profile[=FILE]: time the read, parse, resolve, emit and write stages of every file, print a report
+     * and write collapsed stacks to FILE (default build/java2ts/profile.collapsed); stage times are self times summed
+     * over threads, with --parallel-members emit and resolve may exceed the wall-clock time
+     * <br>--profile-top=N: number of slowest files listed in the profile report, default 10
+     * <br>--jmx: register the converter statistics MBean ({@value ConverterStats#OBJECT_NAME})
+     * <br>--declarations: only print declarations (no bodies or initializers) into .d.ts files
+     * <br>--javac[=CLASSPATH]: take class and expression types from a javac attribution pass over the files
+     * (needs a JDK), with res/java as source path and CLASSPATH as class path, decoded with the charset of their source
+     * roots, which must all have the same one
+     * <br>--resolve-types[=SIZE]: take expression types from java-symbol-solver over the class path and res/java,
+     * cheaper than --javac and without a JDK, resolved classes cached in SIZE entries shared by all files
+     * (default {@value SymbolTypeResolver#DEFAULT_CACHE_SIZE}), with --profile the cache hit rate is reported
+     * <br>--class-index=FILE: find same package classes in the index FILE written by util.ClassIndex instead of
+     * scanning the class path
+     * <br>--rules=FILE: rewrite method calls and field accesses by the rules in FILE (see res/rules/java-api.rules)
+     * <br>--passes=NAMES: run the comma separated optimisation passes (or all) over every unit before printing,
+     * with --profile their times are reported too
+     * <br>--int-semantics: print int and long casts, division, multiplication, >>> and compound assignments with
+     * Java's truncation and 32 bit wrapping, where --javac or --resolve-types know the operand types
+     * <br>--typed-arrays: print arrays of numbers as typed arrays (int[] as Int32Array, double[] as Float64Array...),
+     * varargs of numbers stay rest arrays and are converted at the entry of the method
+     * <br>--out=DIR: where the .ts of file.java arguments go, in the directories of their package, default next to
+     * the java file; two files that would write the same .ts are an error
+     * <br>--shards=N: split the files by path hash into N shards converted by N processes, then print one report
+     * with the warnings and the total and per shard throughput (work files in build/java2ts/shards)
+     * <br>className is looked up in res/java and written to res/output_ts
+     */
     public static void main(String[] args) throws Exception {
-        convertClass("android.widget.DatePicker");
-        convertClass("android.widget.TimePicker");
+        boolean virtualThreadIO = false;
+        Path cacheDir = null;
+        TSPrinterConfiguration configuration = new TSPrinterConfiguration();
+        Path collapsedStacksFile = null;
+        int profileTop = 10;
+        Path outDir = null;
+        int shards = 1;
+        Path shardReportFile = null;
+        List<String> javacOptions = null;
+        SymbolTypeResolver symbolTypeResolver = null;
+        // the options shard processes are started with
+        List<String> childOptions = new ArrayList<>();
+        List<String> classNames = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--virtual-threads")) {
+                virtualThreadIO = true;
+            } else if (arg.startsWith("--parallel-members=")) {
+                configuration.setParallelMemberThreshold(Integer.parseInt(arg.substring("--parallel-members=".length())));
+                childOptions.add(arg);
+            } else if (arg.startsWith("--cache=")) {
+                cacheDir = Paths.get(arg.substring("--cache=".length()));
+                childOptions.add(arg);
+            } else if (arg.startsWith("--shards=")) {
+                shards = Integer.parseInt(arg.substring("--shards=".length()));
+            } else if (arg.startsWith("--shard-report=")) {
+                shardReportFile = Paths.get(arg.substring("--shard-report=".length()));
+            } else if (arg.startsWith("--hash-index=")) {
+                outputWriter = new OutputWriter(StandardCharsets.UTF_8, BufferPool.shared(),
+                        Paths.get(arg.substring("--hash-index=".length())));
+            } else if (arg.equals("--profile")) {
+                collapsedStacksFile = Paths.get("build/java2ts/profile.collapsed");
+            } else if (arg.startsWith("--profile=")) {
+                collapsedStacksFile = Paths.get(arg.substring("--profile=".length()));
+            } else if (arg.startsWith("--profile-top=")) {
+                profileTop = Integer.parseInt(arg.substring("--profile-top=".length()));
+            } else if (arg.equals("--jmx")) {
+                ConverterStats.register();
+            } else if (arg.equals("--declarations")) {
+                configuration.setDeclarationOnly(true);
+                outExtension = ".d.ts";
+                childOptions.add(arg);
+            } else if (arg.equals("--javac") || arg.startsWith("--javac=")) {
+                javacOptions = new ArrayList<>(Arrays.asList("-sourcepath", "res/java"));
+                if (arg.startsWith("--javac=")) {
+                    javacOptions.add("-classpath");
+                    javacOptions.add(arg.substring("--javac=".length()));
+                }
+                childOptions.add(arg);
+            } else if (arg.equals("--resolve-types") || arg.startsWith("--resolve-types=")) {
+                symbolTypeResolver = new SymbolTypeResolver(arg.startsWith("--resolve-types=")
+                        ? Integer.parseInt(arg.substring("--resolve-types=".length())) : SymbolTypeResolver.DEFAULT_CACHE_SIZE,
+                        new File("res/java"));
+                childOptions.add(arg);
+            } else if (arg.startsWith("--class-index=")) {
+                ClassIndex.setShared(ClassIndex.load(Paths.get(arg.substring("--class-index=".length()))));
+                childOptions.add(arg);
+            } else if (arg.startsWith("--rules=")) {
+                configuration.setRewriteRules(RewriteRules.load(Paths.get(arg.substring("--rules=".length()))));
+                childOptions.add(arg);
+            } else if (arg.startsWith("--passes=")) {
+                configuration.setPassManager(PassManager.of(arg.substring("--passes=".length())));
+                childOptions.add(arg);
+            } else if (arg.equals("--int-semantics")) {
+                configuration.setIntegerSemantics(true);
+                childOptions.add(arg);
+            } else if (arg.equals("--typed-arrays")) {
+                configuration.setTypedArrays(true);
+                childOptions.add(arg);
+            } else if (arg.startsWith("--out=")) {
+                outDir = Paths.get(arg.substring("--out=".length()));
+                childOptions.add(arg);
+            } else {
+                classNames.add(arg);
+            }
+        }
+        if (classNames.isEmpty()) {
+            classNames.add("android.widget.DatePicker");
+            classNames.add("android.widget.TimePicker");
+        }
+        Map<File, Path> javaToOutFiles = new LinkedHashMap<>();
+        Map<File, String> javaFileArgs = new LinkedHashMap<>();
+        for (String className : classNames) {
+            File javaFile;
+            if (className.endsWith(".java")) {
+                javaFile = new File(className);
+                String outName = javaFile.getName().substring(0, javaFile.getName().length() - ".java".length()) + outExtension;
+                javaToOutFiles.put(javaFile, outDir != null
+                        ? outDir.resolve(getPackagePath(javaFile)).resolve(outName) : javaFile.toPath().resolveSibling(outName));
+            } else {
+                javaFile = getJavaFile(className);
+                javaToOutFiles.put(javaFile, getOutFile(className));
+            }
+            javaFileArgs.put(javaFile, className);
+        }
+        Map<Path, File> outToJavaFiles = new HashMap<>();
+        for (Map.Entry<File, Path> javaToOutFile : javaToOutFiles.entrySet()) {
+            File other = outToJavaFiles.put(javaToOutFile.getValue().toAbsolutePath().normalize(), javaToOutFile.getKey());
+            if (other != null && !other.equals(javaToOutFile.getKey())) {
+                throw new IllegalArgumentException(other + " and " + javaToOutFile.getKey() + " would both be written to "
+                        + javaToOutFile.getValue());
+            }
+        }
+
+        if (shards > 1) {
+            ShardedConverter shardedConverter = new ShardedConverter(shards, childOptions, Paths.get("build/java2ts/shards"));
+            RunReport merged = shardedConverter.run(javaFileArgs);
+            shardedConverter.printReport(System.out, merged);
+            if (collapsedStacksFile != null) {
+                merged.getProfiler().printReport(System.out, profileTop);
+                merged.getProfiler().writeCollapsedStacks(collapsedStacksFile);
+            }
+            return;
+        }
+
+        if (javacOptions != null) {
+            List<Path> javaFiles = javaToOutFiles.keySet().stream().map(File::toPath).collect(Collectors.toList());
+            // javac decodes all of them with one charset, the positions must match the nodes parsed with theirs
+            JavacTypeResolver typeResolver = JavacTypeResolver.analyze(javaFiles, javacOptions,
+                    Java2TS.getSourceReader().getCharset(javaFiles));
+            if (!typeResolver.getErrors().isEmpty()) {
+                System.out.println("[WARN] javac: " + typeResolver.getErrors().size() + " errors, types involved are printed as written");
+            }
+            configuration.setTypeResolver(typeResolver);
+        } else if (symbolTypeResolver != null) {
+            configuration.setTypeResolver(symbolTypeResolver);
+        }
+        ConversionCache cache = cacheDir != null ? new ConversionCache(cacheDir) : null;
+        converter = new Java2TSConverter(configuration, Java2TS.getSourceReader(), cache);
+        if (collapsedStacksFile != null) {
+            profiler = new Profiler();
+        }
+        if (shardReportFile != null) {
+            runReport = profiler != null ? new RunReport(profiler) : new RunReport();
+            profiler = runReport.getProfiler();
+        }
+
+        if (virtualThreadIO) {
+            try (BatchConverter batchConverter = new BatchConverter(converter, Java2TS.getSourceReader(), outputWriter, true)) {
+                batchConverter.setProfiler(profiler);
+                javaToOutFiles.forEach((javaFile, outFile) -> batchConverter.submit(javaFile.toPath(), outFile));
+                batchConverter.awaitAll();
+            }
+        } else {
+            for (Map.Entry<File, Path> javaToOutFile : javaToOutFiles.entrySet()) {
+                convertFile(javaToOutFile.getKey(), javaToOutFile.getValue());
+            }
+        }
+        outputWriter.saveHashIndex();
+        if (cache != null) {
+            cache.close();
+        }
+        if (collapsedStacksFile != null) {
+            profiler.printReport(System.out, profileTop);
+            profiler.writeCollapsedStacks(collapsedStacksFile);
+            if (!configuration.getPassManager().getPasses().isEmpty()) {
+                configuration.getPassManager().printReport(System.out);
+            }
+            if (configuration.getTypeResolver() == symbolTypeResolver && symbolTypeResolver != null) {
+                System.out.println("==== java2ts type cache: " + symbolTypeResolver.getCache() + " ====");
+            }
+        }
+        if (shardReportFile != null) {
+            runReport.write(shardReportFile);
+        }
     }
 
     public static void convertClass(String className) throws Exception {
-        File javaFile = new File("res/java/" + className.replaceAll("\\.", "/") + ".java");
-        String tsSource = Java2TS.convertClassToTSCode(javaFile);
-
-        File outFile = new File("res/output_ts/" + className.replaceAll("\\.", "/") + ".ts");
-        outFile.getParentFile().mkdirs();
-        FileWriter fw = new FileWriter(outFile);
-        fw.write(tsSource);
-        fw.close();
+        convertFile(getJavaFile(className), getOutFile(className));
+    }
+
+    private static void convertFile(File javaFile, Path outFile) throws Exception {
+        try (Profiler.Scope ignored = Profiler.enter(profiler == null ? null : profiler.getFile(javaFile.toPath().toString()))) {
+            ConversionResult result = converter.convertToResult(javaFile);
+            if (runReport != null) {
+                runReport.addFile(javaFile.toPath().toString(), javaFile.length(), result.getWarnings());
+            }
+            long profileBegin = Profiler.begin();
+            outputWriter.write(outFile, result.getTsCode());
+            Profiler.end(Profiler.Stage.WRITE, profileBegin);
+        }
+    }
+
+    private static File getJavaFile(String className) {
+        return new File("res/java/" + className.replaceAll("\\.", "/") + ".java");
+    }
+
+    /**
+     * @return the directories of the package javaFile declares, empty for the default package; javaFile is read as the
+     * converter reads it, in the charset of its source root and without a byte order mark
+     */
+    private static Path getPackagePath(File javaFile) throws IOException {
+        CharBuffer source = Java2TS.getSourceReader().read(javaFile.toPath());
+        try (BufferedReader reader = new BufferedReader(new StringReader(source.toString()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = PACKAGE_DECLARATION.matcher(line);
+                if (matcher.lookingAt()) {
+                    return Paths.get(matcher.group(1).replace('.', '/'));
+                }
+                if (TYPE_OR_IMPORT.matcher(line).lookingAt()) {
+                    break;
+                }
+            }
+        }
+        return Paths.get("");
+    }
+
+    private static Path getOutFile(String className) {
+        return Paths.get("res/output_ts/" + className.replaceAll("\\.", "/") + outExtension);
     }
 }
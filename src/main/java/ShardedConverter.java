@@ -0,0 +1,143 @@
+import util.RunReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Splits the files by path hash into shards and converts each shard in its own JVM, each with its own heap and
+ * only the class lookups of its own files. The shard processes write run reports, merged into one afterwards.
+ */
+public class ShardedConverter {
+    private final int shardCount;
+    private final List<String> childOptions;
+    private final Path workDir;
+    private final Shard[] shards;
+    private long wallNanos;
+
+    /**
+     * @param childOptions Main options given to every shard process
+     * @param workDir      where the shard reports, logs and output hash indexes go
+     */
+    public ShardedConverter(int shardCount, List<String> childOptions, Path workDir) {
+        this.shardCount = shardCount;
+        this.childOptions = childOptions;
+        this.workDir = workDir;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * @return the shard of a java file, the same for the same path on every run and JVM
+     */
+    public static int shardOf(String javaFilePath, int shardCount) {
+        return Math.floorMod(javaFilePath.replace('\\', '/').hashCode(), shardCount);
+    }
+
+    /**
+     * @param files the Main arguments naming the files to convert (class names or .java paths), by their java file
+     * @return the merged report of all shards
+     */
+    public RunReport run(Map<File, String> files) throws IOException, InterruptedException {
+        files.forEach((javaFile, arg) -> shards[shardOf(javaFile.getPath(), shardCount)].args.add(arg));
+        Files.createDirectories(workDir);
+
+        long begin = System.nanoTime();
+        for (Shard shard : shards) {
+            if (!shard.args.isEmpty()) {
+                shard.start();
+            }
+        }
+        RunReport merged = new RunReport();
+        List<String> failures = new ArrayList<>();
+        for (Shard shard : shards) {
+            if (shard.process == null) continue;
+            int exitCode = shard.process.waitFor();
+            shard.nanos = System.nanoTime() - shard.startNanos;
+            if (exitCode != 0) {
+                failures.add("shard " + shard.index + " exited with " + exitCode + ", see " + shard.logFile());
+            }
+            if (Files.isRegularFile(shard.reportFile())) {
+                shard.report = RunReport.read(shard.reportFile());
+                merged.merge(shard.report);
+            }
+        }
+        wallNanos = System.nanoTime() - begin;
+        if (!failures.isEmpty()) {
+            throw new IOException(String.join("; ", failures));
+        }
+        return merged;
+    }
+
+    public void printReport(PrintStream out, RunReport merged) {
+        out.println(String.format(Locale.ROOT, "==== java2ts shards: %d shards, %d files, %d warnings, %.0fms, %.1f files/s, %.1f KB/s ====",
+                shardCount, merged.getFileCount(), merged.getWarningCount(), wallNanos / 1e6,
+                perSecond(merged.getFileCount(), wallNanos), perSecond(merged.getSourceBytes(), wallNanos) / 1024));
+        for (Shard shard : shards) {
+            if (shard.report == null) continue;
+            out.println(String.format(Locale.ROOT, "shard %d: %d files, %d warnings, %.0fms, %.1f files/s, %.1f KB/s",
+                    shard.index, shard.report.getFileCount(), shard.report.getWarningCount(), shard.nanos / 1e6,
+                    perSecond(shard.report.getFileCount(), shard.nanos), perSecond(shard.report.getSourceBytes(), shard.nanos) / 1024));
+        }
+        if (merged.getWarningCount() > 0) {
+            out.println("---- warnings ----");
+            merged.getWarnings().forEach((path, warnings) -> {
+                for (String warning : warnings) {
+                    out.println(path + ": " + warning.trim());
+                }
+            });
+        }
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    private class Shard {
+        private final int index;
+        private final List<String> args = new ArrayList<>();
+        private Process process;
+        private long startNanos;
+        private long nanos;
+        private RunReport report;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        Path reportFile() {
+            return workDir.resolve("shard-" + index + ".report");
+        }
+
+        Path logFile() {
+            return workDir.resolve("shard-" + index + ".log");
+        }
+
+        void start() throws IOException {
+            Files.deleteIfExists(reportFile());
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Main.class.getName());
+            command.addAll(childOptions);
+            command.add("--shard-report=" + reportFile());
+            command.add("--hash-index=" + workDir.resolve("output-hashes-" + index));
+            command.addAll(args);
+            startNanos = System.nanoTime();
+            process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(logFile().toFile())
+                    .start();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package print;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.AnnotationDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.type.TypeParameter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hoists anonymous classes out of the expressions creating them: each one is printed once after its root class as
+ * class Root$N, taking the outer instance as constructor parameter, and the expression only does new Root$N(this, ...)
+ * instead of building a new class object on every evaluation.
+ * <p>
+ * Only anonymous classes directly in an instance member of a non generic top level class are hoisted, and only if
+ * their body names no local variable, parameter, local class or type parameter of the enclosing member, which
+ * wouldn't be in scope after the root class. Static members are left alone, they may run before the hoisted classes
+ * are defined. For the same reason nothing of a root class is hoisted when its static initialisation may create an
+ * instance of it or of a subclass in the unit, as a singleton does: directly in a static field or initializer, or in
+ * a static method of the root class these call.
+ */
+public class AnonymousClassHoistingPass implements Pass {
+    @Override
+    public String getName() {
+        return "hoist-anonymous";
+    }
+
+    @Override
+    public void run(PassDecisions decisions) {
+        // identity keys, Node.hashCode hashes the whole subtree
+        visit(decisions, decisions.getUnit(), new IdentityHashMap<>(), new IdentityHashMap<>());
+    }
+
+    private static void visit(PassDecisions decisions, Node node, Map<TypeDeclaration<?>, Integer> counts,
+                              Map<TypeDeclaration<?>, Boolean> createdStatically) {
+        if (node instanceof ObjectCreationExpr && ((ObjectCreationExpr) node).getAnonymousClassBody().isPresent()) {
+            ObjectCreationExpr n = (ObjectCreationExpr) node;
+            BodyDeclaration<?> member = findMemberOfRootClass(n);
+            if (member != null) {
+                TypeDeclaration<?> root = (TypeDeclaration<?>) member.getParentNode().get();
+                int number = counts.merge(root, 1, Integer::sum);
+                if (isHoistable(n, root, member)
+                        && !createdStatically.computeIfAbsent(root, AnonymousClassHoistingPass::isCreatedStatically)) {
+                    hoist(decisions, n, root, root.getNameAsString() + "$" + number);
+                }
+            }
+        }
+        for (Node child : node.getChildNodes()) {
+            visit(decisions, child, counts, createdStatically);
+        }
+    }
+
+    /**
+     * Substitutes new Name(this, ...) for n, with the class printed after root.
+     */
+    private static void hoist(PassDecisions decisions, ObjectCreationExpr n, TypeDeclaration<?> root, String name) {
+        boolean hasOuterThis = !decisions.isOuterThisUnused(n);
+        int argumentCount = n.getArguments().size();
+        boolean isInterface = Boolean.TRUE.equals(decisions.getConfiguration().getTypeResolver().isInterface(n.getType()));
+
+        Substitution hoistedClass = new Substitution()
+                .text("class " + name + (isInterface ? " implements " : " extends "))
+                .typeArguments(n.getTypeArguments().orElse(null))
+                .node(n.getType())
+                .text(" {").line()
+                .indent();
+        if (hasOuterThis || argumentCount > 0) {
+            StringBuilder parameters = new StringBuilder(hasOuterThis ? "private __this: " + root.getNameAsString() : "");
+            StringBuilder superArguments = new StringBuilder();
+            for (int i = 0; i < argumentCount; i++) {
+                if (hasOuterThis || i > 0) parameters.append(", ");
+                parameters.append("arg").append(i).append(": any");
+                if (i > 0) superArguments.append(", ");
+                superArguments.append("arg").append(i);
+            }
+            hoistedClass.line().text("constructor(" + parameters + ") {").line().indent();
+            if (!isInterface) {
+                hoistedClass.text("super(" + superArguments + ");").line();
+            }
+            hoistedClass.unindent().text("}").line();
+        }
+        hoistedClass.members(n.getAnonymousClassBody().get())
+                .unindent()
+                .text("}").line();
+
+        Substitution creation = new Substitution().text("new " + name + "(");
+        if (hasOuterThis) {
+            creation.text(argumentCount > 0 ? "this, " : "this");
+        }
+        decisions.substitute(n, creation
+                .nodes(n.getArguments(), ", ")
+                .text(")")
+                .afterRoot(hoistedClass));
+    }
+
+    /**
+     * @return whether the static fields and initializers of root, or the static methods of root they call, create an
+     * instance of root or of a class of the unit extending it, which runs the instance members of root while root is
+     * being defined
+     */
+    private static boolean isCreatedStatically(TypeDeclaration<?> root) {
+        Set<String> types = new HashSet<>();
+        types.add(root.getNameAsString());
+        List<ClassOrInterfaceDeclaration> classes = new ArrayList<>();
+        collectClasses(root.getParentNode().get(), classes);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (ClassOrInterfaceDeclaration c : classes) {
+                if (!types.contains(c.getNameAsString())
+                        && c.getExtendedTypes().stream().anyMatch(type -> types.contains(type.getNameAsString()))) {
+                    types.add(c.getNameAsString());
+                    changed = true;
+                }
+            }
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        for (BodyDeclaration<?> member : root.getMembers()) {
+            if (member instanceof FieldDeclaration && ((FieldDeclaration) member).getModifiers().contains(Modifier.STATIC)
+                    || member instanceof InitializerDeclaration && ((InitializerDeclaration) member).isStatic()) {
+                pending.add(member);
+            }
+        }
+        Set<MethodDeclaration> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!pending.isEmpty()) {
+            if (creates(pending.pop(), root, types, reached, pending)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param reached the static methods of root already found called, the newly found ones are added to pending
+     */
+    private static boolean creates(Node node, TypeDeclaration<?> root, Set<String> types, Set<MethodDeclaration> reached,
+                                   Deque<Node> pending) {
+        if (node instanceof ObjectCreationExpr && types.contains(((ObjectCreationExpr) node).getType().getNameAsString())) {
+            return true;
+        }
+        if (node instanceof MethodCallExpr) {
+            MethodCallExpr call = (MethodCallExpr) node;
+            if (!call.getScope().isPresent() || call.getScope().get().toString().equals(root.getNameAsString())) {
+                for (MethodDeclaration method : root.getMethodsByName(call.getNameAsString())) {
+                    if (method.getModifiers().contains(Modifier.STATIC) && reached.add(method)) {
+                        pending.add(method);
+                    }
+                }
+            }
+        }
+        for (Node child : node.getChildNodes()) {
+            if (creates(child, root, types, reached, pending)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the member of a top level class that n is directly in, null if n is in a nested, local or anonymous class
+     */
+    private static BodyDeclaration<?> findMemberOfRootClass(ObjectCreationExpr n) {
+        BodyDeclaration<?> member = findEnclosingMember(n);
+        return member != null && member.getParentNode().get() instanceof TypeDeclaration
+                && member.getParentNode().get().getParentNode().orElse(null) instanceof CompilationUnit ? member : null;
+    }
+
+    /**
+     * @return the member of the innermost class, enum or anonymous class body node is in, null if there's none
+     */
+    static BodyDeclaration<?> findEnclosingMember(Node node) {
+        Node child = node;
+        Node parent = node.getParentNode().orElse(null);
+        while (parent != null) {
+            if (parent instanceof ClassOrInterfaceDeclaration || parent instanceof EnumDeclaration
+                    || parent instanceof AnnotationDeclaration) {
+                return child instanceof BodyDeclaration ? (BodyDeclaration<?>) child : null;
+            }
+            if (parent instanceof ObjectCreationExpr && child instanceof BodyDeclaration) {
+                // in the body of an anonymous class, not in its arguments
+                return (BodyDeclaration<?>) child;
+            }
+            child = parent;
+            parent = parent.getParentNode().orElse(null);
+        }
+        return null;
+    }
+
+    private static boolean isHoistable(ObjectCreationExpr n, TypeDeclaration<?> root, BodyDeclaration<?> member) {
+        if (!(root instanceof ClassOrInterfaceDeclaration) || ((ClassOrInterfaceDeclaration) root).isInterface()
+                || !((ClassOrInterfaceDeclaration) root).getTypeParameters().isEmpty() || n.getScope().isPresent()) {
+            return false;
+        }
+        if (member instanceof FieldDeclaration && ((FieldDeclaration) member).getModifiers().contains(Modifier.STATIC)
+                || member instanceof InitializerDeclaration && ((InitializerDeclaration) member).isStatic()
+                || member instanceof MethodDeclaration && ((MethodDeclaration) member).getModifiers().contains(Modifier.STATIC)) {
+            return false;
+        }
+        Set<String> locals = new HashSet<>();
+        collectLocals(member, n, member, locals);
+        if (locals.isEmpty()) {
+            return true;
+        }
+        Set<String> used = new HashSet<>();
+        collectNames(n.getType(), used);
+        n.getAnonymousClassBody().get().forEach(body -> collectNames(body, used));
+        used.retainAll(locals);
+        return used.isEmpty();
+    }
+
+    /**
+     * Collects the names member declares outside of anonymous classes, so outside of n too, the fields of a field
+     * member excepted.
+     */
+    private static void collectLocals(Node node, ObjectCreationExpr n, BodyDeclaration<?> member, Set<String> locals) {
+        if (node instanceof ObjectCreationExpr && ((ObjectCreationExpr) node).getAnonymousClassBody().isPresent()) {
+            return;
+        }
+        if (node instanceof Parameter) {
+            locals.add(((Parameter) node).getNameAsString());
+        } else if (node instanceof VariableDeclarator && node.getParentNode().orElse(null) != member) {
+            locals.add(((VariableDeclarator) node).getNameAsString());
+        } else if (node instanceof ClassOrInterfaceDeclaration) {
+            locals.add(((ClassOrInterfaceDeclaration) node).getNameAsString());
+        } else if (node instanceof TypeParameter) {
+            locals.add(((TypeParameter) node).getNameAsString());
+        }
+        for (Node child : node.getChildNodes()) {
+            collectLocals(child, n, member, locals);
+        }
+    }
+
+    private static void collectClasses(Node node, List<ClassOrInterfaceDeclaration> classes) {
+        if (node instanceof ClassOrInterfaceDeclaration) {
+            classes.add((ClassOrInterfaceDeclaration) node);
+        }
+        for (Node child : node.getChildNodes()) {
+            collectClasses(child, classes);
+        }
+    }
+
+    private static void collectNames(Node node, Set<String> names) {
+        if (node instanceof SimpleName) {
+            names.add(((SimpleName) node).getIdentifier());
+        }
+        for (Node child : node.getChildNodes()) {
+            collectNames(child, names);
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package print;
 
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
-import util.ClassUtil;
+import util.ConversionEvents;
+import util.ConverterStats;
+import util.Profiler;
+import util.ResolutionFacts;
 
 import java.util.ArrayList;
-import java.util.List;
 import java.util.stream.Collectors;
 
 /**
@@ -16,60 +17,69 @@ import java.util.stream.Collectors;
  */
 public class ClassFinder {
     public static Class findClass(ClassOrInterfaceType type) throws Exception {
-        ArrayList<String> scopeAndTypes = new ArrayList<>();
-        scopeAndTypes.add(type.getNameAsString());
-        ClassOrInterfaceType find = type;
-        while (find.getScope().isPresent()) {
-            find = find.getScope().get();
-            scopeAndTypes.add(0, find.getNameAsString());
+        long profileBegin = Profiler.begin();
+        Object event = ConversionEvents.beginFindClass();
+        String[] strategy = new String[1];
+        Class found = null;
+        try {
+            ArrayList<String> scopeAndTypes = new ArrayList<>();
+            scopeAndTypes.add(type.getNameAsString());
+            ClassOrInterfaceType find = type;
+            while (find.getScope().isPresent()) {
+                find = find.getScope().get();
+                scopeAndTypes.add(0, find.getNameAsString());
+            }
+            Class rootScopeClass = findScopeClass(find, strategy);
+            scopeAndTypes.set(0, rootScopeClass.getName());
+            found = ResolutionFacts.forName(scopeAndTypes.stream().collect(Collectors.joining("$")));
+            return found;
+        } finally {
+            ConverterStats.get().classLookedUp(found != null);
+            if (event != null) {
+                ConversionEvents.endFindClass(event, type.toString(), found != null ? found.getName() : null, strategy[0]);
+            }
+            Profiler.end(Profiler.Stage.RESOLVE, profileBegin);
         }
-        Class rootScopeClass = findScopeClass(find);
-        scopeAndTypes.set(0, rootScopeClass.getName());
-        return Class.forName(scopeAndTypes.stream().collect(Collectors.joining("$")));
     }
-    private static Class findScopeClass(ClassOrInterfaceType type) throws Exception {
+    /**
+     * @param strategy receives how the type was resolved: inner, import, package or java.lang
+     */
+    private static Class findScopeClass(ClassOrInterfaceType type, String[] strategy) throws Exception {
         String typeName = type.getNameAsString();
+        ResolutionTable table = ResolutionTable.of(findRoot(type));
         // find in inner class
         ClassOrInterfaceDeclaration findInClass = findOwnerClassDeclar(type);
         while (findInClass != null) {
-            for (ClassOrInterfaceDeclaration c : getDirectClassDeclarChildren(findInClass)) {
-                if (c.getNameAsString().equals(typeName)) {
-                    return Class.forName(getFullClassName(c));
-                }
+            String nestedClassName = table.getNestedClass(findInClass, typeName);
+            if (nestedClassName != null) {
+                strategy[0] = "inner";
+                return ResolutionFacts.forName(nestedClassName);
             }
             findInClass = findOwnerClassDeclar(findInClass);
         }
-        // find in import
-        CompilationUnit root = findRootUnit(type);
-        if (root != null && root.getImports() != null) {
-            for (ImportDeclaration imp : root.getImports()) {
-                String nameWithPackage = imp.getName().getQualifier() + "." + imp.getName().getIdentifier();
-                if (imp.isAsterisk()) {
-                    try {
-                        return Class.forName(nameWithPackage + "." + typeName);
-                    } catch (Exception ignore) {
-                    }
-                } else if (imp.getName().getIdentifier().equals(typeName)) {
-                    return Class.forName(nameWithPackage);
-                }
-            }
+        // imported types are not looked up, the TS output imports them by their simple name
+        strategy[0] = "import";
+        String importedType = table.getImportedType(typeName);
+        if (importedType != null) {
+            throw new ClassNotFoundException(importedType);
         }
         // find in same package
-        if (root != null && root.getPackageDeclaration().isPresent()) {
-            String packageName = root.getPackageDeclaration().get().getNameAsString();
-            for (Class packageClass : ClassUtil.getClasses(packageName)) {
-                if (packageClass.getSimpleName().equals(typeName)) {
-                    return packageClass;
-                }
+        if (table.getPackageName() != null) {
+            strategy[0] = "package";
+            Class packageClass = ResolutionFacts.findPackageClass(table.getPackageName(), typeName);
+            if (packageClass != null) {
+                return packageClass;
             }
         }
 
         // find in java.lang package
+        strategy[0] = "java.lang";
         try {
-            return Class.forName("java.lang." + typeName);
+            return ResolutionFacts.forName("java.lang." + typeName);
         } catch (Exception ignore) {
         }
 
+        strategy[0] = null;
         return null;
     }
     public static String getFullClassName(ClassOrInterfaceDeclaration innerClass) {
@@ -102,6 +112,13 @@ public class ClassFinder {
         }
         return null;
     }
+    private static Node findRoot(Node node) {
+        Node root = node;
+        while (root.getParentNode().isPresent()) {
+            root = root.getParentNode().get();
+        }
+        return root;
+    }
     private static ClassOrInterfaceDeclaration findOwnerClassDeclar(Node node) {
         Node parent = node.getParentNode().orElse(null);
         if (parent != null) {
@@ -113,10 +130,4 @@ public class ClassFinder {
         }
         return null;
     }
-    private static List<ClassOrInterfaceDeclaration> getDirectClassDeclarChildren(ClassOrInterfaceDeclaration parent) {
-        return parent.getMembers().stream()
-                .filter(bodyDeclaration -> bodyDeclaration instanceof ClassOrInterfaceDeclaration)
-                .map(bodyDeclaration -> (ClassOrInterfaceDeclaration) bodyDeclaration)
-                .collect(Collectors.toList());
-    }
 }
@@ -0,0 +1,218 @@
+package print;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.ArrayAccessExpr;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.expr.BooleanLiteralExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.IntegerLiteralExpr;
+import com.github.javaparser.ast.expr.LongLiteralExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.expr.UnaryExpr;
+
+/**
+ * Folds operators over int, long, boolean and String literals into one literal, with Java semantics: int
+ * arithmetic wraps at 32 bits and integer division truncates, as the Java code meant, which the printed TS
+ * arithmetic wouldn't do. Expressions with char or floating point operands are left alone.
+ */
+public class ConstantFoldingPass implements Pass {
+    @Override
+    public String getName() {
+        return "fold-constants";
+    }
+
+    @Override
+    public void run(PassDecisions decisions) {
+        fold(decisions, decisions.getUnit());
+    }
+
+    private static void fold(PassDecisions decisions, Node node) {
+        if (node instanceof BinaryExpr || node instanceof UnaryExpr || node instanceof EnclosedExpr) {
+            Object value = evaluate((Expression) node);
+            if (value != null) {
+                decisions.substitute(node, new Substitution().text(toTs(value, node)));
+                return;
+            }
+        }
+        for (Node child : node.getChildNodes()) {
+            fold(decisions, child);
+        }
+    }
+
+    private static String toTs(Object value, Node node) {
+        String text = value instanceof String ? "\"" + value + "\"" : value.toString();
+        Node parent = node.getParentNode().orElse(null);
+        if (node instanceof EnclosedExpr && (parent instanceof MethodCallExpr || parent instanceof FieldAccessExpr
+                || parent instanceof ArrayAccessExpr || parent instanceof UnaryExpr)) {
+            // 3.toString() or - -1 need the parentheses
+            return "(" + text + ")";
+        }
+        return text;
+    }
+
+    /**
+     * @return an Integer, Long, Boolean, or the escaped text of a String, null if expression isn't constant
+     */
+    private static Object evaluate(Expression expression) {
+        if (expression instanceof IntegerLiteralExpr) {
+            return parseIntegral(((IntegerLiteralExpr) expression).getValue(), false);
+        } else if (expression instanceof LongLiteralExpr) {
+            return parseIntegral(((LongLiteralExpr) expression).getValue(), true);
+        } else if (expression instanceof BooleanLiteralExpr) {
+            return ((BooleanLiteralExpr) expression).getValue();
+        } else if (expression instanceof StringLiteralExpr) {
+            return ((StringLiteralExpr) expression).getValue();
+        } else if (expression instanceof EnclosedExpr) {
+            return evaluate(((EnclosedExpr) expression).getInner());
+        } else if (expression instanceof UnaryExpr) {
+            return evaluate((UnaryExpr) expression);
+        } else if (expression instanceof BinaryExpr) {
+            return evaluate((BinaryExpr) expression);
+        }
+        return null;
+    }
+
+    private static Object evaluate(UnaryExpr n) {
+        Object value = evaluate(n.getExpression());
+        if (value == null) return null;
+        switch (n.getOperator()) {
+            case PLUS:
+                return value instanceof Integer || value instanceof Long ? value : null;
+            case MINUS:
+                if (value instanceof Integer) return -(Integer) value;
+                if (value instanceof Long) return -(Long) value;
+                return null;
+            case BITWISE_COMPLEMENT:
+                if (value instanceof Integer) return ~(Integer) value;
+                if (value instanceof Long) return ~(Long) value;
+                return null;
+            case LOGICAL_COMPLEMENT:
+                return value instanceof Boolean ? !(Boolean) value : null;
+            default:
+                return null;
+        }
+    }
+
+    private static Object evaluate(BinaryExpr n) {
+        Object left = evaluate(n.getLeft());
+        if (left == null) return null;
+        Object right = evaluate(n.getRight());
+        if (right == null) return null;
+        BinaryExpr.Operator operator = n.getOperator();
+
+        if (left instanceof String || right instanceof String) {
+            return operator == BinaryExpr.Operator.PLUS ? left.toString() + right : null;
+        }
+        if (left instanceof Boolean && right instanceof Boolean) {
+            boolean a = (Boolean) left;
+            boolean b = (Boolean) right;
+            switch (operator) {
+                case AND:
+                case BINARY_AND:
+                    return a && b;
+                case OR:
+                case BINARY_OR:
+                    return a || b;
+                case XOR:
+                case NOT_EQUALS:
+                    return a != b;
+                case EQUALS:
+                    return a == b;
+                default:
+                    return null;
+            }
+        }
+        if (!(left instanceof Integer || left instanceof Long) || !(right instanceof Integer || right instanceof Long)) {
+            return null;
+        }
+        boolean isShift = operator == BinaryExpr.Operator.LEFT_SHIFT || operator == BinaryExpr.Operator.SIGNED_RIGHT_SHIFT
+                || operator == BinaryExpr.Operator.UNSIGNED_RIGHT_SHIFT;
+        // a shift has the type of its left operand
+        boolean isLong = left instanceof Long || (!isShift && right instanceof Long);
+        long a = ((Number) left).longValue();
+        long b = ((Number) right).longValue();
+        long result;
+        switch (operator) {
+            case PLUS:
+                result = a + b;
+                break;
+            case MINUS:
+                result = a - b;
+                break;
+            case MULTIPLY:
+                result = a * b;
+                break;
+            case DIVIDE:
+                if (b == 0) return null;
+                result = a / b;
+                break;
+            case REMAINDER:
+                if (b == 0) return null;
+                result = a % b;
+                break;
+            case BINARY_AND:
+                result = a & b;
+                break;
+            case BINARY_OR:
+                result = a | b;
+                break;
+            case XOR:
+                result = a ^ b;
+                break;
+            case LEFT_SHIFT:
+                result = isLong ? a << b : (int) a << (int) b;
+                break;
+            case SIGNED_RIGHT_SHIFT:
+                result = isLong ? a >> b : (int) a >> (int) b;
+                break;
+            case UNSIGNED_RIGHT_SHIFT:
+                result = isLong ? a >>> b : (int) a >>> (int) b;
+                break;
+            case EQUALS:
+                return a == b;
+            case NOT_EQUALS:
+                return a != b;
+            case LESS:
+                return a < b;
+            case GREATER:
+                return a > b;
+            case LESS_EQUALS:
+                return a <= b;
+            case GREATER_EQUALS:
+                return a >= b;
+            default:
+                return null;
+        }
+        return isLong ? (Object) result : (Object) (int) result;
+    }
+
+    /**
+     * @return the value of a decimal, hex, octal or binary literal, null if it's out of range
+     */
+    private static Object parseIntegral(String literal, boolean isLong) {
+        String digits = literal.replace("_", "");
+        if (isLong) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        int radix = 10;
+        if (digits.startsWith("0x") || digits.startsWith("0X")) {
+            radix = 16;
+            digits = digits.substring(2);
+        } else if (digits.startsWith("0b") || digits.startsWith("0B")) {
+            radix = 2;
+            digits = digits.substring(2);
+        } else if (digits.length() > 1 && digits.startsWith("0")) {
+            radix = 8;
+            digits = digits.substring(1);
+        }
+        try {
+            // 0xFFFFFFFF is -1 and 2147483648 only appears negated
+            return isLong ? (Object) Long.parseUnsignedLong(digits, radix) : (Object) Integer.parseUnsignedInt(digits, radix);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package print;
+
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declares the inner (non static member) classes of top level classes once, as static members taking the outer
+ * instance as first constructor parameter into a field Outer_this, instead of building the class anew for every outer
+ * instance in ((Outer_this) => class ...)(this). new Inner(...) becomes new Inner(outer instance, ...) and Outer.this
+ * in the inner class becomes this.Outer_this.
+ * <p>
+ * An inner class stays as it is when some creation of it can't be rewritten: a qualified outer.new Inner(), an
+ * anonymous subclass, a creation in a static member or in another class than the outer class and its hoisted inner
+ * classes; and when a class of the unit extends it, its outer class is generic or it names Outer_this itself.
+ */
+public class InnerClassHoistingPass implements Pass {
+    @Override
+    public String getName() {
+        return "hoist-inner";
+    }
+
+    @Override
+    public void run(PassDecisions decisions) {
+        if (decisions.getConfiguration().isDeclarationOnly()) {
+            // the creations are in the blanked bodies, and inner classes are printed as modules
+            return;
+        }
+        for (TypeDeclaration<?> root : decisions.getUnit().getTypes()) {
+            if (!(root instanceof ClassOrInterfaceDeclaration) || ((ClassOrInterfaceDeclaration) root).isInterface()
+                    || !((ClassOrInterfaceDeclaration) root).getTypeParameters().isEmpty()) {
+                continue;
+            }
+            String outerThis = root.getNameAsString() + "_this";
+            Set<ClassOrInterfaceDeclaration> inners = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (BodyDeclaration<?> member : root.getMembers()) {
+                if (member instanceof ClassOrInterfaceDeclaration && !((ClassOrInterfaceDeclaration) member).isInterface()
+                        && !((ClassOrInterfaceDeclaration) member).getModifiers().contains(Modifier.STATIC)
+                        && !names(member, outerThis)) {
+                    inners.add((ClassOrInterfaceDeclaration) member);
+                }
+            }
+            if (inners.isEmpty()) continue;
+
+            // an inner class creating another one passes its own outer instance, so it has to be hoisted too
+            Map<ObjectCreationExpr, ClassOrInterfaceDeclaration> creations = new IdentityHashMap<>();
+            List<ClassOrInterfaceType> extendedTypes = new ArrayList<>();
+            collect(decisions.getUnit(), inners, creations, extendedTypes);
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (Map.Entry<ObjectCreationExpr, ClassOrInterfaceDeclaration> creation : creations.entrySet()) {
+                    if (inners.contains(creation.getValue())
+                            && outerInstance(creation.getKey(), root, inners, outerThis) == null) {
+                        inners.remove(creation.getValue());
+                        changed = true;
+                    }
+                }
+            }
+            for (ClassOrInterfaceType extendedType : extendedTypes) {
+                inners.removeIf(inner -> inner.getNameAsString().equals(extendedType.getNameAsString()));
+            }
+
+            for (ClassOrInterfaceDeclaration inner : inners) {
+                hoist(decisions, inner, root, outerThis);
+            }
+            for (Map.Entry<ObjectCreationExpr, ClassOrInterfaceDeclaration> creation : creations.entrySet()) {
+                if (inners.contains(creation.getValue())) {
+                    ObjectCreationExpr n = creation.getKey();
+                    Substitution substitution = new Substitution()
+                            .text("new ")
+                            .typeArguments(n.getTypeArguments().orElse(null))
+                            .node(n.getType())
+                            .text("(" + outerInstance(n, root, inners, outerThis));
+                    for (Expression argument : n.getArguments()) {
+                        substitution.text(", ").node(argument);
+                    }
+                    decisions.substitute(n, substitution.text(")"));
+                }
+            }
+            for (ClassOrInterfaceDeclaration inner : inners) {
+                rewriteOuterThis(decisions, inner, root, inner, outerThis);
+            }
+        }
+    }
+
+    /**
+     * Substitutes static Inner = class ... for inner, its constructors taking the outer instance first, and adds a
+     * constructor doing so if it has none.
+     */
+    private static void hoist(PassDecisions decisions, ClassOrInterfaceDeclaration inner, TypeDeclaration<?> root,
+                              String outerThis) {
+        String parameter = "private " + outerThis + ": " + root.getNameAsString();
+        Substitution bodyStart = null;
+        if (inner.getMembers().stream().noneMatch(member -> member instanceof ConstructorDeclaration)) {
+            bodyStart = new Substitution().line().text("constructor(" + parameter + ") {").line();
+            if (!inner.getExtendedTypes().isEmpty()) {
+                bodyStart.indent().text("super();").line().unindent();
+            }
+            bodyStart.text("}").line();
+        }
+        decisions.substitute(inner, new Substitution()
+                .memberAnnotations(inner.getAnnotations())
+                .modifiers(inner.getModifiers())
+                .text("static ")
+                .node(inner.getName())
+                .text(" = ")
+                .classContent(inner, bodyStart));
+
+        for (BodyDeclaration<?> member : inner.getMembers()) {
+            if (!(member instanceof ConstructorDeclaration)) continue;
+            ConstructorDeclaration n = (ConstructorDeclaration) member;
+            Substitution substitution = new Substitution()
+                    .memberAnnotations(n.getAnnotations())
+                    .text("constructor(" + parameter);
+            if (!n.getParameters().isEmpty()) {
+                substitution.text(", ").nodes(n.getParameters(), ", ");
+            }
+            substitution.text(")");
+            if (!n.getThrownExceptions().isEmpty()) {
+                substitution.warning(n, "not support thrown exception here");
+            }
+            decisions.substitute(n, substitution.text(" ").node(n.getBody()));
+        }
+    }
+
+    /**
+     * Collects the creations of the inner classes, by their simple name, and the types classes extend.
+     */
+    private static void collect(Node node, Set<ClassOrInterfaceDeclaration> inners,
+                                Map<ObjectCreationExpr, ClassOrInterfaceDeclaration> creations,
+                                List<ClassOrInterfaceType> extendedTypes) {
+        if (node instanceof ObjectCreationExpr) {
+            String name = ((ObjectCreationExpr) node).getType().getNameAsString();
+            for (ClassOrInterfaceDeclaration inner : inners) {
+                if (inner.getNameAsString().equals(name)) {
+                    creations.put((ObjectCreationExpr) node, inner);
+                }
+            }
+        } else if (node instanceof ClassOrInterfaceDeclaration) {
+            extendedTypes.addAll(((ClassOrInterfaceDeclaration) node).getExtendedTypes());
+        }
+        for (Node child : node.getChildNodes()) {
+            collect(child, inners, creations, extendedTypes);
+        }
+    }
+
+    /**
+     * @return the TS expression of the outer instance at the creation, null if there's none to pass
+     */
+    private static String outerInstance(ObjectCreationExpr creation, TypeDeclaration<?> root,
+                                        Set<ClassOrInterfaceDeclaration> inners, String outerThis) {
+        if (creation.getScope().isPresent() || creation.getAnonymousClassBody().isPresent()) {
+            return null;
+        }
+        BodyDeclaration<?> member = AnonymousClassHoistingPass.findEnclosingMember(creation);
+        if (member == null || isStatic(member)) {
+            return null;
+        }
+        Node enclosingClass = member.getParentNode().get();
+        if (enclosingClass == root) {
+            return "this";
+        }
+        return inners.contains(enclosingClass) ? "this." + outerThis : null;
+    }
+
+    private static boolean isStatic(BodyDeclaration<?> member) {
+        return member instanceof FieldDeclaration && ((FieldDeclaration) member).getModifiers().contains(Modifier.STATIC)
+                || member instanceof InitializerDeclaration && ((InitializerDeclaration) member).isStatic()
+                || member instanceof MethodDeclaration && ((MethodDeclaration) member).getModifiers().contains(Modifier.STATIC);
+    }
+
+    /**
+     * Rewrites Outer.this directly in inner, not in the classes nested in it, where this is another instance.
+     */
+    private static void rewriteOuterThis(PassDecisions decisions, Node node, TypeDeclaration<?> root,
+                                         ClassOrInterfaceDeclaration inner, String outerThis) {
+        if (node instanceof ThisExpr && ((ThisExpr) node).getClassExpr().isPresent()
+                && ((ThisExpr) node).getClassExpr().get().toString().equals(root.getNameAsString())) {
+            BodyDeclaration<?> member = AnonymousClassHoistingPass.findEnclosingMember(node);
+            if (member != null && member.getParentNode().get() == inner) {
+                decisions.substitute(node, new Substitution().text("this." + outerThis));
+            }
+        }
+        for (Node child : node.getChildNodes()) {
+            rewriteOuterThis(decisions, child, root, inner, outerThis);
+        }
+    }
+
+    private static boolean names(Node node, String identifier) {
+        if (node instanceof SimpleName && ((SimpleName) node).getIdentifier().equals(identifier)) {
+            return true;
+        }
+        for (Node child : node.getChildNodes()) {
+            if (names(child, identifier)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,263 @@
+package print;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.ParameterizedTypeTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Type information from one javac parse and attribution pass (JavacTask parse/analyze) over a whole source set.
+ * <p>
+ * javac trees are matched to JavaParser nodes by compilation unit (package and top level type names) and by the
+ * begin and end line/column of the node, javac offsets being turned into columns as offset - line start + 1.
+ * Class types resolve like {@link ClassFinder} does, but without reflection: nested types of the unit, types of the
+ * same package and of java.lang get their binary name, the others are printed as written.
+ * Needs the jdk.compiler module (JDK 9+) or tools.jar on the class path. The instance is read only after
+ * {@link #analyze}, so it can be shared by converters on many threads.
+ */
+public class JavacTypeResolver implements TypeResolver {
+    private static final String AS_WRITTEN = "";
+
+    private final Map<String, String> classNames = new HashMap<>();
+    private final Map<String, Boolean> interfaces = new HashMap<>();
+    private final Map<String, String> expressionTypes = new HashMap<>();
+    private final List<String> errors = new ArrayList<>();
+    private String fingerprint;
+
+    private JavacTypeResolver() {
+    }
+
+    /**
+     * @param javacOptions javac options such as -classpath, annotation processing is always off
+     */
+    public static JavacTypeResolver analyze(Collection<Path> sourceFiles, List<String> javacOptions, Charset charset) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("no system java compiler, the javac front end needs a JDK");
+        }
+        JavacTypeResolver resolver = new JavacTypeResolver();
+        resolver.fingerprint = fingerprintOf(sourceFiles, javacOptions);
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, charset)) {
+            List<File> files = sourceFiles.stream().map(Path::toFile).collect(Collectors.toList());
+            List<String> options = new ArrayList<>(javacOptions);
+            options.add("-proc:none");
+            JavacTask task = (JavacTask) compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(files));
+            Iterable<? extends CompilationUnitTree> units = task.parse();
+            // unresolvable symbols are reported but don't stop attribution of everything else
+            task.analyze();
+            Trees trees = Trees.instance(task);
+            for (CompilationUnitTree unit : units) {
+                resolver.new Indexer(unit, trees, task.getElements()).scan(new TreePath(unit), null);
+            }
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                resolver.errors.add(diagnostic.toString());
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * @return javac errors of the analysis, mostly classes missing from the class path
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String resolveClassName(ClassOrInterfaceType type) {
+        String className = classNames.get(keyOf(type));
+        return className == null || className.equals(AS_WRITTEN) ? null : className;
+    }
+
+    @Override
+    public Boolean isInterface(ClassOrInterfaceType type) {
+        return interfaces.get(keyOf(type));
+    }
+
+    @Override
+    public String getExpressionType(Expression expression) {
+        return expressionTypes.get(keyOf(expression));
+    }
+
+    @Override
+    public String getFingerprint() {
+        return "javac:" + fingerprint;
+    }
+
+    private static String keyOf(Node node) {
+        Node root = node;
+        while (root.getParentNode().isPresent()) {
+            root = root.getParentNode().get();
+        }
+        if (!(root instanceof CompilationUnit) || !node.getBegin().isPresent() || !node.getEnd().isPresent()) {
+            return null;
+        }
+        CompilationUnit unit = (CompilationUnit) root;
+        List<String> typeNames = new ArrayList<>();
+        for (TypeDeclaration<?> type : unit.getTypes()) {
+            typeNames.add(type.getNameAsString());
+        }
+        String packageName = unit.getPackageDeclaration().isPresent() ? unit.getPackageDeclaration().get().getNameAsString() : "";
+        Position begin = node.getBegin().get();
+        Position end = node.getEnd().get();
+        return key(unitKey(packageName, typeNames), begin.line, begin.column, end.line, end.column);
+    }
+
+    private static String unitKey(String packageName, List<String> typeNames) {
+        return packageName + ":" + String.join(",", typeNames);
+    }
+
+    private static String key(String unitKey, long beginLine, long beginColumn, long endLine, long endColumn) {
+        return unitKey + "@" + beginLine + ":" + beginColumn + "-" + endLine + ":" + endColumn;
+    }
+
+    private static String fingerprintOf(Collection<Path> sourceFiles, List<String> javacOptions) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(String.join("\0", javacOptions).getBytes(Charset.forName("UTF-8")));
+        for (Path sourceFile : sourceFiles) {
+            digest.update(sourceFile.toString().getBytes(Charset.forName("UTF-8")));
+            digest.update(Files.readAllBytes(sourceFile));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private class Indexer extends TreePathScanner<Void, Void> {
+        private final CompilationUnitTree unit;
+        private final Trees trees;
+        private final Elements elements;
+        private final SourcePositions positions;
+        private final LineMap lineMap;
+        private final String unitKey;
+        private final String packageName;
+        private final Set<String> unitTypes = new HashSet<>();
+
+        Indexer(CompilationUnitTree unit, Trees trees, Elements elements) {
+            this.unit = unit;
+            this.trees = trees;
+            this.elements = elements;
+            this.positions = trees.getSourcePositions();
+            this.lineMap = unit.getLineMap();
+            this.packageName = unit.getPackageName() != null ? unit.getPackageName().toString() : "";
+            List<String> typeNames = new ArrayList<>();
+            for (Tree type : unit.getTypeDecls()) {
+                if (type instanceof ClassTree) {
+                    String name = ((ClassTree) type).getSimpleName().toString();
+                    typeNames.add(name);
+                    unitTypes.add(packageName.isEmpty() ? name : packageName + "." + name);
+                }
+            }
+            this.unitKey = unitKey(packageName, typeNames);
+        }
+
+        @Override
+        public Void scan(Tree tree, Void arg) {
+            if (tree != null && getCurrentPath() != null) {
+                if (tree instanceof ExpressionTree) {
+                    index(tree, new TreePath(getCurrentPath(), tree));
+                } else if (tree instanceof ParameterizedTypeTree) {
+                    // JavaParser has one node for "List<String>", javac a parameterized type around "List"
+                    Tree rawType = ((ParameterizedTypeTree) tree).getType();
+                    indexType(tree, new TreePath(new TreePath(getCurrentPath(), tree), rawType));
+                }
+            }
+            return super.scan(tree, arg);
+        }
+
+        private void index(Tree tree, TreePath path) {
+            String key = keyOf(tree);
+            if (key == null) return;
+            TypeMirror type = trees.getTypeMirror(path);
+            if (type != null && (type.getKind().isPrimitive() || type.getKind() == TypeKind.DECLARED
+                    || type.getKind() == TypeKind.ARRAY || type.getKind() == TypeKind.TYPEVAR)) {
+                expressionTypes.put(key, type.toString());
+            }
+            if (tree.getKind() == Tree.Kind.IDENTIFIER || tree.getKind() == Tree.Kind.MEMBER_SELECT) {
+                indexType(tree, path);
+            }
+        }
+
+        private void indexType(Tree tree, TreePath path) {
+            String key = keyOf(tree);
+            Element element = trees.getElement(path);
+            if (key == null || !(element instanceof TypeElement)) return;
+            TypeElement typeElement = (TypeElement) element;
+            interfaces.put(key, element.getKind() == ElementKind.INTERFACE || element.getKind() == ElementKind.ANNOTATION_TYPE);
+
+            TypeElement topLevel = typeElement;
+            while (topLevel.getEnclosingElement() instanceof TypeElement) {
+                topLevel = (TypeElement) topLevel.getEnclosingElement();
+            }
+            String typePackage = elements.getPackageOf(typeElement).getQualifiedName().toString();
+            boolean resolvable = unitTypes.contains(topLevel.getQualifiedName().toString())
+                    || typePackage.equals(packageName) || typePackage.equals("java.lang");
+            classNames.put(key, resolvable ? elements.getBinaryName(typeElement).toString() : AS_WRITTEN);
+        }
+
+        private String keyOf(Tree tree) {
+            long begin = positions.getStartPosition(unit, tree);
+            long end = positions.getEndPosition(unit, tree);
+            if (begin < 0 || end <= begin) return null;
+            // JavaParser ends are inclusive
+            long last = end - 1;
+            long beginLine = lineMap.getLineNumber(begin);
+            long lastLine = lineMap.getLineNumber(last);
+            return key(unitKey, beginLine, begin - lineMap.getStartPosition(beginLine) + 1,
+                    lastLine, last - lineMap.getStartPosition(lastLine) + 1);
+        }
+    }
+}
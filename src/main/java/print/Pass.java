@@ -0,0 +1,18 @@
+package print;
+
+/**
+ * An optimisation run by the {@link PassManager} over a unit before it's printed.
+ * One instance runs on many units at once, so passes keep no state of their own.
+ */
+public interface Pass {
+    /**
+     * @return the name the pass is switched on by (--passes) and reported under
+     */
+    String getName();
+
+    /**
+     * Records what the pass decided about nodes of decisions.getUnit() in decisions, as {@link Substitution}s the
+     * printer prints instead of the nodes, never changing the tree.
+     */
+    void run(PassDecisions decisions);
+}
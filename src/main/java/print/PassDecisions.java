@@ -0,0 +1,65 @@
+package print;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What the {@link Pass}es decided about the nodes of one compilation unit, a side table keyed by node identity next to
+ * the JavaParser tree: the {@link Substitution}s the printer prints instead of nodes, and what passes tell later passes.
+ * Passes never change the tree, it can be the caller's and the type resolvers find nodes by position.
+ */
+public class PassDecisions {
+    static final PassDecisions EMPTY = new PassDecisions(null, null);
+
+    private final CompilationUnit unit;
+    private final TSPrinterConfiguration configuration;
+    // identity keys, Node.hashCode hashes the whole subtree
+    private final Map<Node, Substitution> substitutions = new IdentityHashMap<>();
+    private final Set<Node> unusedOuterThis = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * @param configuration what the unit is printed with, for its type resolver and mode
+     */
+    public PassDecisions(CompilationUnit unit, TSPrinterConfiguration configuration) {
+        this.unit = unit;
+        this.configuration = configuration;
+    }
+
+    public CompilationUnit getUnit() {
+        return unit;
+    }
+
+    public TSPrinterConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Prints substitution instead of node, replacing a substitution an earlier pass made.
+     */
+    public void substitute(Node node, Substitution substitution) {
+        substitutions.put(node, substitution);
+    }
+
+    /**
+     * @return what is printed instead of node, null to print it as it is
+     */
+    public Substitution getSubstitution(Node node) {
+        return substitutions.isEmpty() ? null : substitutions.get(node);
+    }
+
+    /**
+     * Marks a member class or anonymous class creation whose body never uses the outer instance, for the passes after.
+     */
+    public void setOuterThisUnused(Node classOrCreation) {
+        unusedOuterThis.add(classOrCreation);
+    }
+
+    public boolean isOuterThisUnused(Node classOrCreation) {
+        return !unusedOuterThis.isEmpty() && unusedOuterThis.contains(classOrCreation);
+    }
+}
@@ -0,0 +1,110 @@
+package print;
+
+import com.github.javaparser.ast.CompilationUnit;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Runs the switched on passes in order over every unit before it's printed, timing each pass.
+ * Thread-safe, one manager is shared by the converters of a run.
+ */
+public class PassManager {
+    public static final PassManager NONE = new PassManager(Collections.emptyList());
+
+    private static final Map<String, Supplier<Pass>> KNOWN_PASSES = new LinkedHashMap<>();
+
+    static {
+        KNOWN_PASSES.put("fold-constants", ConstantFoldingPass::new);
+        KNOWN_PASSES.put("drop-unused-this", UnusedOuterThisPass::new);
+        KNOWN_PASSES.put("hoist-anonymous", AnonymousClassHoistingPass::new);
+        KNOWN_PASSES.put("hoist-inner", InnerClassHoistingPass::new);
+    }
+
+    private final Pass[] passes;
+    private final AtomicLongArray nanos;
+    private final AtomicLongArray runs;
+
+    public PassManager(List<Pass> passes) {
+        this.passes = passes.toArray(new Pass[0]);
+        this.nanos = new AtomicLongArray(this.passes.length);
+        this.runs = new AtomicLongArray(this.passes.length);
+    }
+
+    /**
+     * @param passNames comma separated names of {@link #getKnownPassNames()}, in the order to run them, or "all"
+     */
+    public static PassManager of(String passNames) {
+        List<String> names = passNames.equals("all") ? new ArrayList<>(KNOWN_PASSES.keySet()) : Arrays.asList(passNames.split(","));
+        List<Pass> passes = new ArrayList<>();
+        for (String name : names) {
+            Supplier<Pass> pass = KNOWN_PASSES.get(name.trim());
+            if (pass == null) {
+                throw new IllegalArgumentException("unknown pass '" + name + "', known passes: " + KNOWN_PASSES.keySet());
+            }
+            passes.add(pass.get());
+        }
+        return new PassManager(passes);
+    }
+
+    public static Set<String> getKnownPassNames() {
+        return Collections.unmodifiableSet(KNOWN_PASSES.keySet());
+    }
+
+    public List<Pass> getPasses() {
+        return Collections.unmodifiableList(Arrays.asList(passes));
+    }
+
+    /**
+     * @return changes with the passes and their order, part of the conversion cache keys
+     */
+    public String getFingerprint() {
+        if (passes.length == 0) return "none";
+        StringBuilder sb = new StringBuilder();
+        for (Pass pass : passes) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(pass.getName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param configuration what unit is printed with
+     */
+    public PassDecisions run(CompilationUnit unit, TSPrinterConfiguration configuration) {
+        PassDecisions decisions = new PassDecisions(unit, configuration);
+        for (int i = 0; i < passes.length; i++) {
+            long begin = System.nanoTime();
+            passes[i].run(decisions);
+            nanos.addAndGet(i, System.nanoTime() - begin);
+            runs.incrementAndGet(i);
+        }
+        return decisions;
+    }
+
+    /**
+     * @return time spent in the pass at index of {@link #getPasses()} over all units
+     */
+    public long getNanos(int index) {
+        return nanos.get(index);
+    }
+
+    public void printReport(PrintStream out) {
+        out.println("==== java2ts passes ====");
+        out.println(String.format(Locale.ROOT, "%-18s %8s %12s %10s", "pass", "units", "total", "per unit"));
+        for (int i = 0; i < passes.length; i++) {
+            long units = runs.get(i);
+            out.println(String.format(Locale.ROOT, "%-18s %8d %10.2fms %8.3fms", passes[i].getName(), units,
+                    nanos.get(i) / 1e6, units == 0 ? 0 : nanos.get(i) / 1e6 / units));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package print;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+/**
+ * Resolves class types by reflection through {@link ClassFinder}, knows no expression types.
+ */
+public class ReflectionTypeResolver implements TypeResolver {
+
+    @Override
+    public String resolveClassName(ClassOrInterfaceType type) {
+        try {
+            return ClassFinder.findClass(type).getName();
+        } catch (Exception ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public Boolean isInterface(ClassOrInterfaceType type) {
+        try {
+            return ClassFinder.findClass(type).isInterface();
+        } catch (Exception ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getExpressionType(Expression expression) {
+        return null;
+    }
+
+    @Override
+    public String getFingerprint() {
+        return "reflection";
+    }
+}
@@ -0,0 +1,124 @@
+package print;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The names type references of one compilation unit are resolved against by {@link ClassFinder}: the package,
+ * the single type imports by simple name and the nested classes of every class by simple name.
+ * Built once when the printer enters the unit, so a type reference costs map lookups instead of walks over
+ * the imports and class members. Read only once built, parallel member printing shares it.
+ */
+public class ResolutionTable {
+    private static final ThreadLocal<ResolutionTable> CURRENT = new ThreadLocal<>();
+
+    private final Node root;
+    private final String packageName;
+    private final Map<String, String> importedTypes = new HashMap<>();
+    // identity keys, Node.hashCode hashes the whole subtree
+    private final Map<ClassOrInterfaceDeclaration, Map<String, String>> nestedClasses = new IdentityHashMap<>();
+
+    /**
+     * @param root a compilation unit, or the topmost node of a detached tree
+     */
+    public ResolutionTable(Node root) {
+        this.root = root;
+        String packageName = null;
+        if (root instanceof CompilationUnit) {
+            CompilationUnit unit = (CompilationUnit) root;
+            if (unit.getPackageDeclaration().isPresent()) {
+                packageName = unit.getPackageDeclaration().get().getNameAsString();
+            }
+            for (ImportDeclaration imp : unit.getImports()) {
+                if (!imp.isAsterisk()) {
+                    importedTypes.putIfAbsent(imp.getName().getIdentifier(), imp.getNameAsString());
+                }
+            }
+        }
+        this.packageName = packageName;
+        addNestedClasses(root);
+    }
+
+    /**
+     * Makes table the one of the current thread until the scope is closed.
+     */
+    public static Scope enter(ResolutionTable table) {
+        ResolutionTable previous = CURRENT.get();
+        CURRENT.set(table);
+        return new Scope(previous);
+    }
+
+    public static ResolutionTable current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the table of the current thread when it is the one of root, else a new one
+     */
+    static ResolutionTable of(Node root) {
+        ResolutionTable current = CURRENT.get();
+        return current != null && current.root == root ? current : new ResolutionTable(root);
+    }
+
+    /**
+     * @return the package of the unit, null for the default package
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return the fully qualified name a single type import gives simpleName, null if not imported
+     */
+    public String getImportedType(String simpleName) {
+        return importedTypes.get(simpleName);
+    }
+
+    /**
+     * @return the binary name of the member class of owner named simpleName, null if it has none
+     */
+    public String getNestedClass(ClassOrInterfaceDeclaration owner, String simpleName) {
+        return nestedClasses.getOrDefault(owner, Collections.emptyMap()).get(simpleName);
+    }
+
+    private void addNestedClasses(Node node) {
+        if (node instanceof ClassOrInterfaceDeclaration) {
+            ClassOrInterfaceDeclaration owner = (ClassOrInterfaceDeclaration) node;
+            for (BodyDeclaration<?> member : owner.getMembers()) {
+                if (member instanceof ClassOrInterfaceDeclaration) {
+                    ClassOrInterfaceDeclaration nested = (ClassOrInterfaceDeclaration) member;
+                    nestedClasses.computeIfAbsent(owner, k -> new HashMap<>())
+                            .putIfAbsent(nested.getNameAsString(), ClassFinder.getFullClassName(nested));
+                }
+            }
+        }
+        for (Node child : node.getChildNodes()) {
+            addNestedClasses(child);
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+        private final ResolutionTable previous;
+
+        private Scope(ResolutionTable previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
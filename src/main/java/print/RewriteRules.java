@@ -0,0 +1,188 @@
+package print;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import util.OutputWriter;
+import util.ResolutionFacts;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Declarative rewrites of method calls and field accesses into TS idioms, one rule per line, # starts a comment:
+ * <pre>
+ * java.util.List.size(0) => $0.length
+ * String.valueOf(1)      => String($1)
+ * Integer.MAX_VALUE      => 2147483647
+ * </pre>
+ * The receiver is a type, qualified or simple, or * for any receiver. A call on a type name (String.valueOf)
+ * matches by the name as written, a call on an expression by the static type of the expression when the type
+ * resolver knows it (--javac), or a subtype of it when both classes can be loaded. In the template $0 is the
+ * receiver, $1 to $9 the arguments and $@ all arguments separated by ", ".
+ * <p>
+ * Rules are compiled into a hash table by method name and arity (or field name), so a call site costs one lookup
+ * however many rules there are. Of the rules of one key, the first matching in file order wins.
+ */
+public class RewriteRules {
+    public static final RewriteRules NONE = new RewriteRules(new HashMap<>(), "none");
+
+    private static final Pattern RULE = Pattern.compile("(\\*|[\\w$.]+)\\.([\\w$]+)(?:\\((\\d+)\\))?\\s*=>\\s*(.*)");
+    private static final int ALL_ARGUMENTS = -1;
+
+    private final Map<String, Rule[]> rules;
+    private final String fingerprint;
+
+    private RewriteRules(Map<String, Rule[]> rules, String fingerprint) {
+        this.rules = rules;
+        this.fingerprint = fingerprint;
+    }
+
+    public static RewriteRules load(Path ruleFile) throws IOException {
+        return parse(new String(Files.readAllBytes(ruleFile), StandardCharsets.UTF_8), ruleFile.toString());
+    }
+
+    /**
+     * @param source where the rules come from, for error messages
+     */
+    public static RewriteRules parse(String ruleText, String source) {
+        Map<String, List<Rule>> byKey = new HashMap<>();
+        String[] lines = ruleText.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            Matcher matcher = RULE.matcher(line);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException(source + ":" + (i + 1) + ": not a rule: " + line);
+            }
+            String key = matcher.group(3) != null ? matcher.group(2) + "/" + matcher.group(3) : matcher.group(2);
+            Rule rule = new Rule(matcher.group(1), matcher.group(4).trim());
+            int arity = matcher.group(3) != null ? Integer.parseInt(matcher.group(3)) : 0;
+            for (int slot : rule.slots) {
+                if (slot > arity || (Rule.isAllArguments(slot) && matcher.group(3) == null)) {
+                    throw new IllegalArgumentException(source + ":" + (i + 1) + ": template refers to a missing argument: " + line);
+                }
+            }
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(rule);
+        }
+        Map<String, Rule[]> rules = new HashMap<>();
+        byKey.forEach((key, keyRules) -> rules.put(key, keyRules.toArray(new Rule[0])));
+        return new RewriteRules(rules, OutputWriter.hash(ruleText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public int size() {
+        return rules.values().stream().mapToInt(keyRules -> keyRules.length).sum();
+    }
+
+    /**
+     * @return changes with the rule text, part of the conversion cache keys
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the rule rewriting the call, null to print it as it is
+     */
+    public Rule find(MethodCallExpr call, TypeResolver typeResolver) {
+        if (!call.getScope().isPresent()) return null;
+        return find(call.getNameAsString() + "/" + call.getArguments().size(), call.getScope().get(), typeResolver);
+    }
+
+    /**
+     * @return the rule rewriting the field access, null to print it as it is
+     */
+    public Rule find(FieldAccessExpr fieldAccess, TypeResolver typeResolver) {
+        return find(fieldAccess.getNameAsString(), fieldAccess.getScope(), typeResolver);
+    }
+
+    private Rule find(String key, Expression receiver, TypeResolver typeResolver) {
+        Rule[] keyRules = rules.get(key);
+        if (keyRules == null) return null;
+        String receiverText = receiver.toString();
+        String receiverType = null;
+        boolean receiverTypeKnown = false;
+        for (Rule rule : keyRules) {
+            if (rule.receiver.equals("*") || rule.receiver.equals(receiverText)) return rule;
+            if (!receiverTypeKnown) {
+                receiverType = erasure(typeResolver.getExpressionType(receiver));
+                receiverTypeKnown = true;
+            }
+            if (receiverType != null && rule.matchesType(receiverType)) return rule;
+        }
+        return null;
+    }
+
+    private static String erasure(String type) {
+        if (type == null) return null;
+        int typeArguments = type.indexOf('<');
+        return typeArguments >= 0 ? type.substring(0, typeArguments) : type;
+    }
+
+    public static class Rule {
+        private final String receiver;
+        private final String[] literals;
+        private final int[] slots;
+
+        Rule(String receiver, String template) {
+            this.receiver = receiver;
+            List<String> literals = new ArrayList<>();
+            List<Integer> slots = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < template.length(); i++) {
+                char c = template.charAt(i);
+                char next = i + 1 < template.length() ? template.charAt(i + 1) : 0;
+                if (c == '$' && (next == '@' || Character.isDigit(next))) {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    slots.add(next == '@' ? ALL_ARGUMENTS : next - '0');
+                    i++;
+                } else {
+                    literal.append(c);
+                }
+            }
+            literals.add(literal.toString());
+            this.literals = literals.toArray(new String[0]);
+            this.slots = slots.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * @return the template text around the slots, one more than {@link #getSlots()}
+         */
+        public String[] getLiterals() {
+            return literals;
+        }
+
+        /**
+         * @return per slot 0 for the receiver, 1 to 9 for an argument and {@link #isAllArguments} for $@
+         */
+        public int[] getSlots() {
+            return slots;
+        }
+
+        public static boolean isAllArguments(int slot) {
+            return slot == ALL_ARGUMENTS;
+        }
+
+        private boolean matchesType(String type) {
+            if (type.equals(receiver) || type.endsWith("." + receiver)) return true;
+            if (receiver.indexOf('.') < 0) return false;
+            try {
+                return ResolutionFacts.forName(receiver).isAssignableFrom(ResolutionFacts.forName(type));
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        }
+    }
+}
@@ -41,6 +41,15 @@ public class SourcePrinter {
         return this;
     }
 
+    public int getLevel() {
+        return level;
+    }
+
+    public SourcePrinter setLevel(int level) {
+        this.level = level;
+        return this;
+    }
+
     private void makeIndent() {
         for (int i = 0; i < level; i++) {
             buf.append(indentation);
@@ -68,6 +77,28 @@ public class SourcePrinter {
         return this;
     }
 
+    /**
+     * Appends source printed by another printer with the same indent level, the fragment must start at the beginning of a line.
+     */
+    public SourcePrinter printFragment(final String fragment) {
+        if (fragment.isEmpty()) {
+            return this;
+        }
+        buf.append(fragment);
+        indented = !fragment.endsWith(endOfLineCharacter);
+        return this;
+    }
+
+    /**
+     * Clears the printed source, so the printer can be used again.
+     */
+    public SourcePrinter reset() {
+        buf.setLength(0);
+        level = 0;
+        indented = false;
+        return this;
+    }
+
     public String getSource() {
         return buf.toString();
     }
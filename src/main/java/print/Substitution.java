@@ -0,0 +1,156 @@
+package print;
+
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.type.Type;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * What a {@link Pass} prints instead of a node: TS text with the nodes of the unit it keeps printed in between as
+ * the printer prints them, so their types, rewrites and own substitutions stay. A few parts print with the routines
+ * the printer prints classes with, modifiers, members and class bodies, so a pass doesn't copy them. Parts after the
+ * root class are printed after the top level class the node is in, once the substitution was printed.
+ * <p>
+ * The printer has no code for any pass, every pass goes through {@link PassDecisions#substitute}.
+ */
+public class Substitution {
+    enum Kind {
+        TEXT, LINE, INDENT, UNINDENT, NODE, ORIGINAL, MODIFIERS, MEMBERS, CLASS, WARNING
+    }
+
+    static class Part {
+        final Kind kind;
+        final Object value;
+        final Object extra;
+
+        Part(Kind kind, Object value, Object extra) {
+            this.kind = kind;
+            this.value = value;
+            this.extra = extra;
+        }
+    }
+
+    private final List<Part> parts = new ArrayList<>();
+    private Substitution afterRoot;
+
+    public Substitution text(String tsText) {
+        return add(Kind.TEXT, tsText, null);
+    }
+
+    /**
+     * Ends the line, the next text is indented.
+     */
+    public Substitution line() {
+        return add(Kind.LINE, null, null);
+    }
+
+    public Substitution indent() {
+        return add(Kind.INDENT, null, null);
+    }
+
+    public Substitution unindent() {
+        return add(Kind.UNINDENT, null, null);
+    }
+
+    /**
+     * Prints node as the printer prints it, with the substitution a pass made for it.
+     */
+    public Substitution node(Node node) {
+        return add(Kind.NODE, node, null);
+    }
+
+    /**
+     * Prints nodes as {@link #node} does, separator between them.
+     */
+    public Substitution nodes(List<? extends Node> nodes, String separator) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i > 0) text(separator);
+            node(nodes.get(i));
+        }
+        return this;
+    }
+
+    /**
+     * Prints node as the printer prints it without its own substitution, to wrap the node this substitutes.
+     */
+    public Substitution original(Node node) {
+        return add(Kind.ORIGINAL, node, null);
+    }
+
+    /**
+     * Prints annotations as the printer prints those of members, each on a line of its own.
+     */
+    public Substitution memberAnnotations(List<AnnotationExpr> annotations) {
+        for (AnnotationExpr annotation : annotations) {
+            node(annotation).line();
+        }
+        return this;
+    }
+
+    /**
+     * Prints type arguments, followed by a space if there are any.
+     */
+    public Substitution typeArguments(List<Type> typeArguments) {
+        if (typeArguments != null && !typeArguments.isEmpty()) {
+            text("<").nodes(typeArguments, ", ").text("> ");
+        }
+        return this;
+    }
+
+    /**
+     * Prints the TS modifiers of a declaration, followed by a space if there are any.
+     */
+    public Substitution modifiers(EnumSet<Modifier> modifiers) {
+        return add(Kind.MODIFIERS, modifiers, null);
+    }
+
+    /**
+     * Prints members as the members of a class body, each on lines of its own after an empty line.
+     */
+    public Substitution members(List<BodyDeclaration<?>> members) {
+        return add(Kind.MEMBERS, members, null);
+    }
+
+    /**
+     * Prints the class from "class Name" to the closing brace, bodyStart right after the opening one.
+     *
+     * @param bodyStart null if nothing
+     */
+    public Substitution classContent(ClassOrInterfaceDeclaration n, Substitution bodyStart) {
+        return add(Kind.CLASS, n, bodyStart);
+    }
+
+    /**
+     * Warns that the conversion doesn't support something of node, as the printer does.
+     */
+    public Substitution warning(Node node, String reason) {
+        return add(Kind.WARNING, node, reason);
+    }
+
+    /**
+     * Prints afterRoot after the top level class too, a class the substitution refers to for example.
+     */
+    public Substitution afterRoot(Substitution afterRoot) {
+        this.afterRoot = afterRoot;
+        return this;
+    }
+
+    List<Part> getParts() {
+        return parts;
+    }
+
+    Substitution getAfterRoot() {
+        return afterRoot;
+    }
+
+    private Substitution add(Kind kind, Object value, Object extra) {
+        parts.add(new Part(kind, value, extra));
+        return this;
+    }
+}
@@ -0,0 +1,223 @@
+package print;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.model.typesystem.Type;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import util.LruCache;
+import util.ResolutionFacts;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Expression types from java-symbol-solver, without a compiler: names, field accesses, method calls (with overload
+ * resolution) and operators are typed by {@link JavaParserFacade} over the class path and, when given, a source root
+ * for classes that are only there as source. Types are erased and printed as javac prints them ("int",
+ * "java.lang.String", "java.util.Map.Entry"), null where the solver can't type the expression (type variables, lambdas,
+ * members of classes that are neither on the class path nor under the source root).
+ * Class types resolve as with {@link ReflectionTypeResolver}.
+ * <p>
+ * Resolved classes go through one size bounded cache, shared by all units the resolver is used for and keyed by the
+ * binary name of the class a reference is in, which has to be unique in a run. Each entry keeps the
+ * {@link ResolutionFacts} its lookup recorded, a conversion recording facts gets them on a hit too, so its facts stay
+ * complete. The symbol solver isn't thread-safe, expressions are typed one at a time.
+ */
+public class SymbolTypeResolver implements TypeResolver {
+    public static final int DEFAULT_CACHE_SIZE = 50_000;
+
+    private final LruCache<String, Object> cache;
+    private final TypeSolver typeSolver;
+    private final String fingerprint;
+    private JavaParserFacade facade;
+    private CompilationUnit facadeUnit;
+
+    public SymbolTypeResolver() {
+        this(DEFAULT_CACHE_SIZE, null);
+    }
+
+    /**
+     * @param cacheSize  most entries the cache of resolved classes keeps
+     * @param sourceRoot where the sources of classes missing from the class path are, null if nowhere
+     */
+    public SymbolTypeResolver(int cacheSize, File sourceRoot) {
+        cache = new LruCache<>(cacheSize);
+        CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver(new ReflectionTypeSolver(false));
+        if (sourceRoot != null && sourceRoot.isDirectory()) {
+            combinedTypeSolver.add(new JavaParserTypeSolver(sourceRoot));
+        }
+        typeSolver = combinedTypeSolver;
+        fingerprint = "symbols " + fingerprintOf(sourceRoot);
+    }
+
+    public LruCache<String, Object> getCache() {
+        return cache;
+    }
+
+    @Override
+    public String resolveClassName(ClassOrInterfaceType type) {
+        Class<?> c = findClass(type);
+        return c != null ? c.getName() : null;
+    }
+
+    @Override
+    public Boolean isInterface(ClassOrInterfaceType type) {
+        Class<?> c = findClass(type);
+        return c != null ? c.isInterface() : null;
+    }
+
+    @Override
+    public String getExpressionType(Expression expression) {
+        Node root = rootOf(expression);
+        if (!(root instanceof CompilationUnit)) return null;
+        synchronized (typeSolver) {
+            if (root != facadeUnit) {
+                // the facade caches the type of every node it saw, keep that to one unit
+                JavaParserFacade.clearInstances();
+                facade = JavaParserFacade.get(typeSolver);
+                facadeUnit = (CompilationUnit) root;
+            }
+            try {
+                return erasure(facade.getType(expression));
+            } catch (RuntimeException e) {
+                // unsolved symbols and constructs the solver doesn't support
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private Class<?> findClass(ClassOrInterfaceType type) {
+        String context = contextOf(type);
+        return (Class<?>) cached(context == null ? null : "class " + context + " " + nameOf(type), key -> {
+            try {
+                return ClassFinder.findClass(type);
+            } catch (Exception ignore) {
+                return null;
+            }
+        });
+    }
+
+    private Object cached(String key, Function<String, Object> loader) {
+        if (key == null) {
+            return loader.apply(key);
+        }
+        Resolved resolved = (Resolved) cache.get(key, k -> {
+            ResolutionFacts facts = new ResolutionFacts();
+            Object value = ResolutionFacts.record(facts, () -> loader.apply(k));
+            return new Resolved(value, facts.isEmpty() ? null : facts);
+        });
+        ResolutionFacts current = ResolutionFacts.current();
+        if (current != null && resolved.facts != null) {
+            current.addAll(resolved.facts);
+        }
+        return resolved.value;
+    }
+
+    /**
+     * A cached value with the class lookups it was resolved from, null if none.
+     */
+    private static class Resolved {
+        final Object value;
+        final ResolutionFacts facts;
+
+        Resolved(Object value, ResolutionFacts facts) {
+            this.value = value;
+            this.facts = facts;
+        }
+    }
+
+    /**
+     * @return type as javac prints its erasure, null for void, the null type, type variables, wildcards and lambdas
+     */
+    private static String erasure(Type type) {
+        if (type.isPrimitive()) {
+            return type.describe();
+        } else if (type.isArray()) {
+            String componentType = erasure(type.asArrayType().getComponentType());
+            return componentType != null ? componentType + "[]" : null;
+        } else if (type.isReferenceType()) {
+            return type.asReferenceType().getQualifiedName();
+        }
+        return null;
+    }
+
+    /**
+     * @return changes when a source under sourceRoot is added, removed or modified
+     */
+    private static String fingerprintOf(File sourceRoot) {
+        if (sourceRoot == null || !sourceRoot.isDirectory()) return "";
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(sourceRoot.toPath())) {
+            sources = files.filter(file -> file.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (Path source : sources) {
+            File file = source.toFile();
+            digest.update((source + "\0" + file.length() + "\0" + file.lastModified() + "\0").getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder sb = new StringBuilder(sourceRoot.getAbsolutePath()).append(' ');
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return binary name of the class node is in, which the resolution of names in node depends on; null outside
+     * classes or of detached trees, not cached then
+     */
+    private static String contextOf(Node node) {
+        for (Node parent = node.getParentNode().orElse(null); parent != null; parent = parent.getParentNode().orElse(null)) {
+            if (parent instanceof ClassOrInterfaceDeclaration) {
+                return rootOf(parent) instanceof CompilationUnit
+                        ? ClassFinder.getFullClassName((ClassOrInterfaceDeclaration) parent) : null;
+            }
+        }
+        return null;
+    }
+
+    private static Node rootOf(Node node) {
+        Node root = node;
+        while (root.getParentNode().isPresent()) {
+            root = root.getParentNode().get();
+        }
+        return root;
+    }
+
+    private static String nameOf(ClassOrInterfaceType type) {
+        String name = type.getNameAsString();
+        for (ClassOrInterfaceType scope = type.getScope().orElse(null); scope != null; scope = scope.getScope().orElse(null)) {
+            name = scope.getNameAsString() + "." + name;
+        }
+        return name;
+    }
+}
@@ -33,8 +33,13 @@ import com.github.javaparser.ast.stmt.*;
 import com.github.javaparser.ast.type.*;
 import com.github.javaparser.ast.visitor.Visitable;
 import com.github.javaparser.ast.visitor.VoidVisitor;
+import util.ConversionEvents;
+import util.ConverterStats;
+import util.Profiler;
+import util.ResolutionFacts;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 import static com.github.javaparser.ast.Node.Parsedness.UNPARSABLE;
@@ -50,7 +55,11 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     protected final TSPrinterConfiguration configuration;
     protected final SourcePrinter printer;
     private CompilationUnit rootNode;
+    private PassDecisions decisions = PassDecisions.EMPTY;
     private ArrayList<ClassOrInterfaceDeclaration> tsModules = new ArrayList<>();
+    private ArrayList<Substitution> afterRoot = new ArrayList<>();
+    private Node original;
+    private ArrayList<String> warnings = new ArrayList<>();
 
     public TSPrintVisitor(TSPrinterConfiguration prettyPrinterConfiguration, CompilationUnit rootNode) {
         configuration = prettyPrinterConfiguration;
@@ -58,15 +67,48 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         this.rootNode = rootNode;
     }
 
+    /**
+     * visitor printing one member of a class into its own fragment, at the indent level of the class body
+     */
+    private TSPrintVisitor(TSPrintVisitor parent) {
+        configuration = parent.configuration;
+        printer = new SourcePrinter(configuration.getIndent(), configuration.getEndOfLineCharacter());
+        printer.setLevel(parent.printer.getLevel());
+        rootNode = parent.rootNode;
+        decisions = parent.decisions;
+    }
+
     public String getSource() {
         return printer.getSource();
     }
 
+    /**
+     * @return the not support warnings of the last print, as "reason :::: node"
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * Clears the state of the last print, so the visitor can print another compilation unit.
+     */
+    public void reset(CompilationUnit rootNode) {
+        printer.reset();
+        tsModules.clear();
+        afterRoot.clear();
+        warnings = new ArrayList<>();
+        this.rootNode = rootNode;
+        decisions = PassDecisions.EMPTY;
+    }
+
     private void warnNotSupport(Node notSupportNode, String notSupportReason) {
+        ConverterStats.get().notSupported(notSupportReason);
         printer.println("/* " + configuration.getNotSupportText() + " : " + notSupportReason + " */");
         if (notSupportNode != null) printer.println("/* " + notSupportNode.toString() + " */");
         if (configuration.isIgnoreNotSupportException()) {
-            System.out.print("[WARN] " + notSupportReason + " :::: " + (notSupportNode != null ? notSupportNode.toString() : ""));
+            String warning = notSupportReason + " :::: " + (notSupportNode != null ? notSupportNode.toString() : "");
+            warnings.add(warning);
+            System.out.print("[WARN] " + warning);
         } else {
             throw new RuntimeException(notSupportReason);
         }
@@ -109,6 +151,43 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         }
     }
 
+    /**
+     * Same output as {@link #printMembers}, but each member is printed on the fork join pool into a separate fragment,
+     * the fragments are then appended in source order.
+     */
+    private void printMembersInParallel(final List<BodyDeclaration<?>> members, final Void arg) {
+        List<ForkJoinTask<TSPrintVisitor>> tasks = new ArrayList<>(members.size());
+        ResolutionFacts resolutionFacts = ResolutionFacts.current();
+        Profiler.FileProfile fileProfile = Profiler.current();
+        String file = ConversionEvents.currentFile();
+        ResolutionTable resolutionTable = ResolutionTable.current();
+        for (final BodyDeclaration<?> member : members) {
+            tasks.add(ForkJoinTask.adapt(() -> ResolutionFacts.record(resolutionFacts, () -> {
+                try (Profiler.Scope ignored = Profiler.enter(fileProfile);
+                     ConversionEvents.FileScope ignoredFile = ConversionEvents.enterFile(file);
+                     ResolutionTable.Scope ignoredTable = ResolutionTable.enter(resolutionTable)) {
+                    long profileBegin = Profiler.begin();
+                    TSPrintVisitor fragmentVisitor = new TSPrintVisitor(this);
+                    member.accept(fragmentVisitor, arg);
+                    Profiler.end(Profiler.Stage.EMIT, profileBegin);
+                    return fragmentVisitor;
+                }
+            })).fork());
+        }
+        for (ForkJoinTask<TSPrintVisitor> task : tasks) {
+            // the tasks profile their own emit and resolve times, waiting for them is neither
+            long waitBegin = Profiler.begin();
+            TSPrintVisitor fragmentVisitor = task.join();
+            Profiler.endWait(waitBegin);
+            printer.println();
+            printer.printFragment(fragmentVisitor.getSource());
+            printer.println();
+            tsModules.addAll(fragmentVisitor.tsModules);
+            afterRoot.addAll(fragmentVisitor.afterRoot);
+            warnings.addAll(fragmentVisitor.warnings);
+        }
+    }
+
     private void printMemberAnnotations(final NodeList<AnnotationExpr> annotations, final Void arg) {
         if (annotations.isEmpty()) {
             return;
@@ -213,44 +292,48 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final CompilationUnit n, final Void arg) {
         printJavaComment(n.getComment(), arg);
-        if (n.getParsed() == UNPARSABLE) {
-            printer.println("???");
-            return;
-        }
+        try (ResolutionTable.Scope ignored = ResolutionTable.enter(new ResolutionTable(n))) {
+            if (n.getParsed() == UNPARSABLE) {
+                printer.println("???");
+                return;
+            }
+            decisions = configuration.getPassManager().run(n, configuration);
 
-        if (n.getPackageDeclaration().isPresent()) {
-            n.getPackageDeclaration().get().accept(this, arg);
-        }
+            if (n.getPackageDeclaration().isPresent()) {
+                n.getPackageDeclaration().get().accept(this, arg);
+            }
 //        printer.indent();
 
-        n.getImports().accept(this, arg);
-        if (!n.getImports().isEmpty()) {
-            printer.println();
-        }
-
-        for (final Iterator<TypeDeclaration<?>> i = n.getTypes().iterator(); i.hasNext(); ) {
-            TypeDeclaration<?> typeDeclaration = i.next();
-            if (typeDeclaration instanceof ClassOrInterfaceDeclaration) {
-                printRootClassOrInterfaceContent((ClassOrInterfaceDeclaration) typeDeclaration, arg);
-            } else {
-                typeDeclaration.accept(this, arg);
+            n.getImports().accept(this, arg);
+            if (!n.getImports().isEmpty()) {
+                printer.println();
             }
-            printer.println();
-            if (i.hasNext()) {
+
+            for (final Iterator<TypeDeclaration<?>> i = n.getTypes().iterator(); i.hasNext(); ) {
+                TypeDeclaration<?> typeDeclaration = i.next();
+                if (typeDeclaration instanceof ClassOrInterfaceDeclaration) {
+                    printRootClassOrInterfaceContent((ClassOrInterfaceDeclaration) typeDeclaration, arg);
+                } else {
+                    typeDeclaration.accept(this, arg);
+                }
                 printer.println();
+                if (i.hasNext()) {
+                    printer.println();
+                }
             }
-        }
 //        printer.unindent();
 //        printer.println("}");
 
-        n.getModule().ifPresent(m -> m.accept(this, arg));
+            n.getModule().ifPresent(m -> m.accept(this, arg));
 
-        printOrphanCommentsEnding(n);
+            printOrphanCommentsEnding(n);
+        }
     }
 
     @Override
     public void visit(final PackageDeclaration n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), false, arg);
 //        printer.print("namespace ");
 //        n.getName().accept(this, arg);
@@ -262,6 +345,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final NameExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getName().accept(this, arg);
 
         printOrphanCommentsEnding(n);
@@ -270,6 +354,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final Name n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getQualifier().isPresent()) {
             n.getQualifier().get().accept(this, arg);
             printer.print(".");
@@ -282,6 +367,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(SimpleName n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         switch (n.getIdentifier()) {
             case "in":
                 printer.print("_" + n.getIdentifier());
@@ -293,7 +379,8 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(final ClassOrInterfaceDeclaration n, final Void arg) {
-        if (n.isInterface() || deepFindParentIsInterface(n)) {
+        if (n.isInterface() || deepFindParentIsInterface(n)
+                || (configuration.isDeclarationOnly() && n.getParentNode().orElse(null) instanceof ClassOrInterfaceDeclaration)) {
             tsModules.add(n); // will be exported module
             printer.print("// class or interface '");
             n.getName().accept(this, arg);
@@ -303,6 +390,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         // only nested type class goto here
 
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
 
         printModifiers(n.getModifiers());
@@ -336,9 +424,12 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         printMemberAnnotations(n.getAnnotations(), arg);
         if (n.getModifiers().contains(Modifier.PUBLIC)) {
             printer.print("export ");
+        } else if (configuration.isDeclarationOnly()) {
+            printer.print("declare ");
         }
         printClassOrInterfaceContent(n, arg);
-        if (tsModules.size() > 0) printer.println();
+        boolean hasModules = tsModules.size() > 0;
+        if (hasModules) printer.println();
 
         ArrayList<ClassOrInterfaceDeclaration> findModules = new ArrayList<>(tsModules);
         tsModules.clear();
@@ -349,6 +440,73 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
             findModules = new ArrayList<>(tsModules);
             tsModules.clear();
         }
+
+        if (!afterRoot.isEmpty()) {
+            if (!hasModules) printer.println();
+            // what these print may add more
+            for (int i = 0; i < afterRoot.size(); i++) {
+                printer.println();
+                printSubstitutionParts(afterRoot.get(i), arg);
+            }
+            afterRoot.clear();
+        }
+    }
+
+    /**
+     * The one hook of the passes: prints what a pass substituted for n instead of n.
+     *
+     * @return false if n is printed as it is
+     */
+    private boolean printSubstitution(final Node n, final Void arg) {
+        if (n == original) return false;
+        Substitution substitution = decisions.getSubstitution(n);
+        if (substitution == null) return false;
+        printSubstitutionParts(substitution, arg);
+        if (substitution.getAfterRoot() != null) {
+            afterRoot.add(substitution.getAfterRoot());
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void printSubstitutionParts(final Substitution substitution, final Void arg) {
+        for (Substitution.Part part : substitution.getParts()) {
+            switch (part.kind) {
+                case TEXT:
+                    printer.print((String) part.value);
+                    break;
+                case LINE:
+                    printer.println();
+                    break;
+                case INDENT:
+                    printer.indent();
+                    break;
+                case UNINDENT:
+                    printer.unindent();
+                    break;
+                case NODE:
+                    ((Node) part.value).accept(this, arg);
+                    break;
+                case ORIGINAL:
+                    Node outer = original;
+                    original = (Node) part.value;
+                    original.accept(this, arg);
+                    original = outer;
+                    break;
+                case MODIFIERS:
+                    printModifiers((EnumSet<Modifier>) part.value);
+                    break;
+                case MEMBERS:
+                    printMembers((List<BodyDeclaration<?>>) part.value, arg);
+                    break;
+                case CLASS:
+                    printClassOrInterfaceContent((ClassOrInterfaceDeclaration) part.value, (Substitution) part.extra, arg);
+                    break;
+                case WARNING:
+                    warnNotSupport((Node) part.value, (String) part.extra);
+                    break;
+            }
+        }
     }
     private void printClassOrInterfaceAsModule(ClassOrInterfaceDeclaration n, final Void arg) {
         ArrayList<String> moduleNames = new ArrayList<>();
@@ -377,6 +535,13 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         }
     }
     private void printClassOrInterfaceContent(final ClassOrInterfaceDeclaration n, final Void arg) {
+        printClassOrInterfaceContent(n, null, arg);
+    }
+
+    /**
+     * @param bodyStart what a pass prints first in the class body, null if nothing
+     */
+    private void printClassOrInterfaceContent(final ClassOrInterfaceDeclaration n, final Substitution bodyStart, final Void arg) {
         if (n.isInterface()) {
             printer.print("interface ");
         } else {
@@ -412,19 +577,31 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
         printer.println(" {");
         printer.indent();
+        if (bodyStart != null) {
+            printSubstitutionParts(bodyStart, arg);
+        }
         if (!isNullOrEmpty(n.getMembers())) {
             // print static class first
             List<BodyDeclaration<?>> classBodyList = new ArrayList<>();
             List<BodyDeclaration<?>> otherBodyList = new ArrayList<>();
             for (final BodyDeclaration<?> member : n.getMembers()) {
+                if (member instanceof InitializerDeclaration && configuration.isDeclarationOnly()) {
+                    continue;
+                }
                 if (member instanceof ClassOrInterfaceDeclaration) {
                     classBodyList.add(member);
                 } else {
                     otherBodyList.add(member);
                 }
             }
-            printMembers(classBodyList, arg);
-            printMembers(otherBodyList, arg);
+            int parallelThreshold = configuration.getParallelMemberThreshold();
+            if (parallelThreshold > 0 && n.getMembers().size() >= parallelThreshold) {
+                printMembersInParallel(classBodyList, arg);
+                printMembersInParallel(otherBodyList, arg);
+            } else {
+                printMembers(classBodyList, arg);
+                printMembers(otherBodyList, arg);
+            }
         }
 
         printOrphanCommentsEnding(n);
@@ -455,6 +632,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ClassOrInterfaceType n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getScope().isPresent()) {
             n.getScope().get().accept(this, arg);
             printer.print(".");
@@ -478,12 +656,8 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
             if (n.getScope().isPresent()) {
                 printer.print(className);
             } else {
-                try {
-                    Class c = ClassFinder.findClass(n);
-                    printer.print(c.getName().replaceAll("\\$", "."));
-                } catch (Exception ignore) {
-                    printer.print(className);
-                }
+                String resolvedName = configuration.getTypeResolver().resolveClassName(n);
+                printer.print(resolvedName != null ? resolvedName.replaceAll("\\$", ".") : className);
             }
 
             if (n.isUsingDiamondOperator()) {
@@ -498,6 +672,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final TypeParameter n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         for (AnnotationExpr ann : n.getAnnotations()) {
             ann.accept(this, arg);
             printer.print(" ");
@@ -518,6 +693,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final PrimitiveType n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), true, arg);
 //        printer.print(n.getType().asString());
         if (n.getType() == PrimitiveType.Primitive.BOOLEAN) printer.print("boolean");
@@ -532,6 +708,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(final ArrayType n, final Void arg) {
+        if (printSubstitution(n, arg)) return;
         final List<ArrayType> arrayTypeBuffer = new LinkedList<>();
         Type type = n;
         while (type instanceof ArrayType) {
@@ -540,15 +717,84 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
             type = arrayType.getComponentType();
         }
 
-        type.accept(this, arg);
+        String typedArray = getTypedArray(type);
+        if (typedArray != null) {
+            // the innermost dimension is the typed array
+            printer.print(typedArray);
+            arrayTypeBuffer.remove(arrayTypeBuffer.size() - 1);
+        } else {
+            type.accept(this, arg);
+        }
         for (ArrayType arrayType : arrayTypeBuffer) {
             printAnnotations(arrayType.getAnnotations(), true, arg);
             printer.print("[]");
         }
     }
 
+    /**
+     * A rest parameter is always an Array, so a varargs parameter of numbers is printed as ...__xs: number[] and
+     * converted at the entry of its method or constructor to let xs = Int32Array.from(__xs), the body sees the same
+     * typed array as of an int[] parameter. Callers still pass the numbers one by one.
+     *
+     * @return the typed array of the varargs parameter n, null if it isn't one or has no body to convert it in
+     */
+    private String getTypedVarArgs(final Parameter n) {
+        if (!n.isVarArgs() || configuration.isDeclarationOnly()) return null;
+        Node parent = n.getParentNode().orElse(null);
+        if (parent instanceof MethodDeclaration && ((MethodDeclaration) parent).getBody().isPresent()
+                || parent instanceof ConstructorDeclaration) {
+            return getTypedArray(n.getType());
+        }
+        return null;
+    }
+
+    /**
+     * @return the typed varargs parameter of the method or constructor with body n, null if there's none
+     */
+    private Parameter getTypedVarArgsOfBody(final BlockStmt n) {
+        Node parent = n.getParentNode().orElse(null);
+        NodeList<Parameter> parameters = parent instanceof MethodDeclaration ? ((MethodDeclaration) parent).getParameters()
+                : parent instanceof ConstructorDeclaration ? ((ConstructorDeclaration) parent).getParameters() : null;
+        if (isNullOrEmpty(parameters)) return null;
+        Parameter last = parameters.get(parameters.size() - 1);
+        return getTypedVarArgs(last) != null ? last : null;
+    }
+
+    private void printTypedVarArgsConversion(final Parameter n, final Void arg) {
+        printer.print("let ");
+        n.getName().accept(this, arg);
+        printer.print(" = " + getTypedVarArgs(n) + ".from(__");
+        n.getName().accept(this, arg);
+        printer.println(");");
+    }
+
+    /**
+     * @return the typed array of elementType with typed arrays on, null if its arrays are printed as arrays
+     */
+    private String getTypedArray(final Type elementType) {
+        if (!configuration.isTypedArrays() || !(elementType instanceof PrimitiveType)) return null;
+        switch (((PrimitiveType) elementType).getType()) {
+            case BYTE:
+                return "Int8Array";
+            case SHORT:
+                return "Int16Array";
+            case INT:
+                return "Int32Array";
+            case LONG:
+                // no typed array holds 64 bit integers as numbers, doubles hold them as exactly as number does
+                return "Float64Array";
+            case FLOAT:
+                return "Float32Array";
+            case DOUBLE:
+                return "Float64Array";
+            default:
+                return null;
+        }
+    }
+
     @Override
     public void visit(final ArrayCreationLevel n, final Void arg) {
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), true, arg);
         printer.print("[");
         if (n.getDimension().isPresent()) {
@@ -560,6 +806,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final IntersectionType n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), false, arg);
         boolean isFirst = true;
         for (ReferenceType element : n.getElements()) {
@@ -575,6 +822,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final UnionType n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), true, arg);
         boolean isFirst = true;
         for (ReferenceType element : n.getElements()) {
@@ -590,6 +838,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final WildcardType n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), false, arg);
         printer.print("?");
         if (n.getExtendedType().isPresent()) {
@@ -612,6 +861,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         printOrphanCommentsBeforeThisChildNode(n);
 
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
         if (n.getParentNode().get() instanceof ClassOrInterfaceDeclaration
                 && ((ClassOrInterfaceDeclaration)n.getParentNode().get()).isInterface()) {
@@ -638,6 +888,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final VariableDeclarator n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getName().accept(this, arg);
         printer.print(": ");
         n.getType().accept(this, arg);
@@ -662,15 +913,91 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
             printer.print("[]");
         }
 
-        if (n.getInitializer().isPresent()) {
+        if (n.getInitializer().isPresent() && !configuration.isDeclarationOnly()) {
             printer.print(" = ");
             n.getInitializer().get().accept(this, arg);
         }
     }
 
+    /**
+     * Prints the creation of the array of levels from level on: new Int32Array(n) for the last dimension,
+     * Array.from({length: n}, () => ...) for the ones before, the dimensions after the first are evaluated per
+     * element, so they must be repeatable or printed as the parameters d0, d1...; unfilled dimensions are arrays of null.
+     */
+    private void printTypedArrayCreation(final List<ArrayCreationLevel> levels, int level, String typedArray,
+                                         boolean isByParameter, final Void arg) {
+        Runnable dimension = isByParameter
+                ? () -> printer.print("d" + level)
+                : () -> levels.get(level).getDimension().get().accept(this, arg);
+        if (level == levels.size() - 1) {
+            printer.print("new " + typedArray + "(");
+            dimension.run();
+            printer.print(")");
+        } else if (!levels.get(level + 1).getDimension().isPresent()) {
+            printer.print("new Array<" + typedArray);
+            for (int i = level + 2; i < levels.size(); i++) {
+                printer.print("[]");
+            }
+            printer.print(">(");
+            dimension.run();
+            printer.print(").fill(null)");
+        } else {
+            printer.print("Array.from({length: ");
+            dimension.run();
+            printer.print("}, () => ");
+            printTypedArrayCreation(levels, level + 1, typedArray, isByParameter, arg);
+            printer.print(")");
+        }
+    }
+
+    /**
+     * Prints the initializer of an array of numbers with typed arrays on, Int32Array.of(...) for the last dimension
+     * and [...] for the ones before.
+     *
+     * @return false if n doesn't initialize a typed array
+     */
+    private boolean printTypedArrayInitializer(final ArrayInitializerExpr n, final Void arg) {
+        int depth = 0;
+        Node node = n;
+        while (node.getParentNode().orElse(null) instanceof ArrayInitializerExpr) {
+            node = node.getParentNode().get();
+            depth++;
+        }
+        Node parent = node.getParentNode().orElse(null);
+        Type elementType;
+        int levels;
+        if (parent instanceof ArrayCreationExpr) {
+            elementType = ((ArrayCreationExpr) parent).getElementType();
+            levels = ((ArrayCreationExpr) parent).getLevels().size();
+        } else if (parent instanceof VariableDeclarator) {
+            elementType = ((VariableDeclarator) parent).getType().getElementType();
+            levels = ((VariableDeclarator) parent).getType().getArrayLevel();
+        } else {
+            return false;
+        }
+        String typedArray = getTypedArray(elementType);
+        if (typedArray == null || depth >= levels) return false;
+        if (depth == levels - 1) {
+            printer.print(typedArray + ".of");
+            printArguments(n.getValues(), arg);
+        } else {
+            printer.print("[");
+            for (final Iterator<Expression> i = n.getValues().iterator(); i.hasNext(); ) {
+                i.next().accept(this, arg);
+                if (i.hasNext()) {
+                    printer.print(", ");
+                }
+            }
+            printer.print("]");
+        }
+        return true;
+    }
+
     @Override
     public void visit(final ArrayInitializerExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
+        if (configuration.isTypedArrays() && printTypedArrayInitializer(n, arg)) return;
         printer.print("{");
         if (!isNullOrEmpty(n.getValues())) {
             printer.print(" ");
@@ -689,6 +1016,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final VoidType n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), false, arg);
         printer.print("void");
     }
@@ -696,6 +1024,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ArrayAccessExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getName().accept(this, arg);
         printer.print("[");
         n.getIndex().accept(this, arg);
@@ -705,6 +1034,40 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ArrayCreationExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
+        String typedArray = getTypedArray(n.getElementType());
+        if (typedArray != null && n.getInitializer().isPresent()) {
+            n.getInitializer().get().accept(this, arg);
+            return;
+        }
+        if (typedArray != null) {
+            boolean isRepeatable = n.getLevels().stream().skip(1)
+                    .allMatch(level -> !level.getDimension().isPresent() || isRepeatable(level.getDimension().get())
+                            || level.getDimension().get() instanceof LiteralExpr);
+            if (isRepeatable) {
+                printTypedArrayCreation(n.getLevels(), 0, typedArray, false, arg);
+            } else {
+                // evaluate the dimensions once and in order, as arguments
+                List<Expression> dimensions = new ArrayList<>();
+                n.getLevels().forEach(level -> level.getDimension().ifPresent(dimensions::add));
+                printer.print("((");
+                for (int i = 0; i < dimensions.size(); i++) {
+                    printer.print((i > 0 ? ", " : "") + "d" + i);
+                }
+                printer.print(") => ");
+                printTypedArrayCreation(n.getLevels(), 0, typedArray, true, arg);
+                printer.print(")(");
+                // not through a NodeList, which would take the dimensions out of the tree
+                for (final Iterator<Expression> dimension = dimensions.iterator(); dimension.hasNext(); ) {
+                    dimension.next().accept(this, arg);
+                    if (dimension.hasNext()) {
+                        printer.print(", ");
+                    }
+                }
+                printer.print(")");
+            }
+            return;
+        }
         printer.print("new ");
         n.getElementType().accept(this, arg);
         for (ArrayCreationLevel level : n.getLevels()) {
@@ -719,6 +1082,8 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final AssignExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
+        if (configuration.isIntegerSemantics() && printIntegerAssign(n, arg)) return;
         n.getTarget().accept(this, arg);
         printer.print(" ");
         printer.print(n.getOperator().asString());
@@ -729,6 +1094,8 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final BinaryExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
+        if (configuration.isIntegerSemantics() && printIntegerBinary(n, arg)) return;
         n.getLeft().accept(this, arg);
         printer.print(" ");
         if (n.getOperator() == BinaryExpr.Operator.EQUALS) {
@@ -745,8 +1112,14 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final CastExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
+        if (configuration.isIntegerSemantics() && printIntegerCast(n, arg)) return;
         String javaType = n.getType().toString();
-        if(javaType.equals("int") || javaType.equals("long")){ // default out is int
+        if((javaType.equals("int") || javaType.equals("long"))
+                && isIntegralType(configuration.getTypeResolver().getExpressionType(n.getExpression()))){
+            // already a whole number, nothing to floor
+            n.getExpression().accept(this, arg);
+        }else if(javaType.equals("int") || javaType.equals("long")){ // default out is int
             printer.print("Math.floor(");
             n.getExpression().accept(this, arg);
             printer.print(")");
@@ -758,9 +1131,203 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         }
     }
 
+    /**
+     * Prints the casts to int, long, short and byte of a non char operand truncating and wrapping like Java.
+     * A cast of an unknown type still truncates, | 0 and Math.trunc are no-ops on whole numbers.
+     *
+     * @return false if n is printed as without integer semantics
+     */
+    private boolean printIntegerCast(final CastExpr n, final Void arg) {
+        String javaType = n.getType().toString();
+        String operandType = getNumericType(n.getExpression());
+        if ("char".equals(operandType)) return false;
+        switch (javaType) {
+            case "int":
+                if (isIntType(operandType)) {
+                    n.getExpression().accept(this, arg);
+                } else {
+                    printer.print("(");
+                    n.getExpression().accept(this, arg);
+                    printer.print(" | 0)");
+                }
+                return true;
+            case "long":
+                if (isIntegralType(operandType)) {
+                    n.getExpression().accept(this, arg);
+                } else {
+                    printer.print("Math.trunc(");
+                    n.getExpression().accept(this, arg);
+                    printer.print(")");
+                }
+                return true;
+            case "short":
+            case "byte":
+                if (operandType == null || javaType.equals(operandType) || "byte".equals(operandType)) return false;
+                String bits = javaType.equals("short") ? "16" : "24";
+                printer.print("(");
+                n.getExpression().accept(this, arg);
+                printer.print(" << " + bits + " >> " + bits + ")");
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Prints int multiplication as Math.imul, int division and >>> wrapped to int by | 0 and long division truncated.
+     *
+     * @return false if n is printed as without integer semantics
+     */
+    private boolean printIntegerBinary(final BinaryExpr n, final Void arg) {
+        String leftType = getNumericType(n.getLeft());
+        String rightType = getNumericType(n.getRight());
+        switch (n.getOperator()) {
+            case MULTIPLY:
+                if (!isIntType(leftType) || !isIntType(rightType)) return false;
+                printer.print("Math.imul(");
+                n.getLeft().accept(this, arg);
+                printer.print(", ");
+                n.getRight().accept(this, arg);
+                printer.print(")");
+                return true;
+            case DIVIDE:
+                if (isIntType(leftType) && isIntType(rightType)) {
+                    printer.print("(");
+                    n.getLeft().accept(this, arg);
+                    printer.print(" / ");
+                    n.getRight().accept(this, arg);
+                    printer.print(" | 0)");
+                    return true;
+                } else if (isIntegralType(leftType) && isIntegralType(rightType)) {
+                    printer.print("Math.trunc(");
+                    n.getLeft().accept(this, arg);
+                    printer.print(" / ");
+                    n.getRight().accept(this, arg);
+                    printer.print(")");
+                    return true;
+                }
+                return false;
+            case UNSIGNED_RIGHT_SHIFT:
+                // a shift has the type of its left operand, JS >>> gives an unsigned result
+                if (!isIntType(leftType)) return false;
+                printer.print("(");
+                n.getLeft().accept(this, arg);
+                printer.print(" >>> ");
+                n.getRight().accept(this, arg);
+                printer.print(" | 0)");
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Prints the compound assignments to an int or long target Java narrows or wraps as target = target op value.
+     * Only targets without side effects are repeated, others are printed as without integer semantics.
+     *
+     * @return false if n is printed as without integer semantics
+     */
+    private boolean printIntegerAssign(final AssignExpr n, final Void arg) {
+        if (n.getOperator() == AssignExpr.Operator.ASSIGN || !isRepeatable(n.getTarget())) return false;
+        String targetType = getNumericType(n.getTarget());
+        String valueType = getNumericType(n.getValue());
+        String operator = n.getOperator().asString();
+        operator = operator.substring(0, operator.length() - 1);
+        String prefix;
+        String suffix;
+        if ("int".equals(targetType)) {
+            switch (n.getOperator()) {
+                case MULTIPLY:
+                    if (isIntType(valueType)) {
+                        n.getTarget().accept(this, arg);
+                        printer.print(" = Math.imul(");
+                        n.getTarget().accept(this, arg);
+                        printer.print(", ");
+                        n.getValue().accept(this, arg);
+                        printer.print(")");
+                        return true;
+                    }
+                    break;
+                case DIVIDE:
+                case UNSIGNED_RIGHT_SHIFT:
+                    break;
+                case PLUS:
+                case MINUS:
+                case REMAINDER:
+                    // an int value doesn't need narrowing
+                    if (isIntType(valueType)) return false;
+                    break;
+                default:
+                    return false;
+            }
+            prefix = "(";
+            suffix = " | 0)";
+        } else if ("long".equals(targetType) && n.getOperator() == AssignExpr.Operator.DIVIDE) {
+            prefix = "Math.trunc(";
+            suffix = ")";
+        } else {
+            return false;
+        }
+        n.getTarget().accept(this, arg);
+        printer.print(" = " + prefix);
+        n.getTarget().accept(this, arg);
+        printer.print(" " + operator + " ");
+        boolean isEnclosed = n.getValue() instanceof BinaryExpr || n.getValue() instanceof ConditionalExpr
+                || n.getValue() instanceof AssignExpr || n.getValue() instanceof InstanceOfExpr
+                || n.getValue() instanceof LambdaExpr;
+        if (isEnclosed) printer.print("(");
+        n.getValue().accept(this, arg);
+        if (isEnclosed) printer.print(")");
+        printer.print(suffix);
+        return true;
+    }
+
+    /**
+     * @return whether evaluating expression twice is the same as once: a name or a field of a name or this
+     */
+    private static boolean isRepeatable(final Expression expression) {
+        if (expression instanceof NameExpr || expression instanceof ThisExpr) return true;
+        return expression instanceof FieldAccessExpr && isRepeatable(((FieldAccessExpr) expression).getScope());
+    }
+
+    /**
+     * @return the type of expression from the type resolver, boxed integral types unboxed, null if unknown
+     */
+    private String getNumericType(final Expression expression) {
+        String javaType = configuration.getTypeResolver().getExpressionType(expression);
+        if (javaType == null) return null;
+        switch (javaType) {
+            case "java.lang.Integer":
+                return "int";
+            case "java.lang.Long":
+                return "long";
+            case "java.lang.Short":
+                return "short";
+            case "java.lang.Byte":
+                return "byte";
+            case "java.lang.Character":
+                return "char";
+            default:
+                return javaType;
+        }
+    }
+
+    /**
+     * @return whether values of javaType are ints after numeric promotion, char left out as chars are printed as strings
+     */
+    private static boolean isIntType(String javaType) {
+        return "int".equals(javaType) || "short".equals(javaType) || "byte".equals(javaType);
+    }
+
+    private static boolean isIntegralType(String javaType) {
+        return "byte".equals(javaType) || "short".equals(javaType)
+                || "int".equals(javaType) || "long".equals(javaType);
+    }
+
     @Override
     public void visit(final ClassExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getType().accept(this, arg);
         printer.print(".class");
     }
@@ -768,6 +1335,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ConditionalExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getCondition().accept(this, arg);
         printer.print(" ? ");
         n.getThenExpr().accept(this, arg);
@@ -778,6 +1346,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final EnclosedExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("(");
         n.getInner().accept(this, arg);
         printer.print(")");
@@ -786,6 +1355,12 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final FieldAccessExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
+        RewriteRules.Rule rule = configuration.getRewriteRules().find(n, configuration.getTypeResolver());
+        if (rule != null) {
+            printRewrite(rule, n.getScope(), new NodeList<>(), arg);
+            return;
+        }
         n.getScope().accept(this, arg);
         printer.print(".");
         n.getName().accept(this, arg);
@@ -794,6 +1369,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final InstanceOfExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getExpression().accept(this, arg);
         printer.print(" instanceof ");
         n.getType().accept(this, arg);
@@ -802,6 +1378,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final CharLiteralExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("'");
         printer.print(n.getValue());
         printer.print("'");
@@ -810,6 +1387,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final DoubleLiteralExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         String value = n.getValue();
         if(value.endsWith("f") || value.endsWith("F") || value.endsWith("d") || value.endsWith("D")) {
             value = value.substring(0, value.length()-1);
@@ -820,12 +1398,14 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final IntegerLiteralExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print(n.getValue());
     }
 
     @Override
     public void visit(final LongLiteralExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         String value = n.getValue();
         if(value.endsWith("l") || value.endsWith("L")) {
             value = value.substring(0, value.length()-1);
@@ -836,6 +1416,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final StringLiteralExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("\"");
         printer.print(n.getValue());
         printer.print("\"");
@@ -844,18 +1425,21 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final BooleanLiteralExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print(String.valueOf(n.getValue()));
     }
 
     @Override
     public void visit(final NullLiteralExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("null");
     }
 
     @Override
     public void visit(final ThisExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getClassExpr().isPresent()) {
             n.getClassExpr().get().accept(this, arg);
             printer.print(".");
@@ -866,6 +1450,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final SuperExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getClassExpr().isPresent()) {
             n.getClassExpr().get().accept(this, arg);
             printer.print(".");
@@ -876,6 +1461,12 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final MethodCallExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
+        RewriteRules.Rule rule = configuration.getRewriteRules().find(n, configuration.getTypeResolver());
+        if (rule != null) {
+            printRewrite(rule, n.getScope().get(), n.getArguments(), arg);
+            return;
+        }
         if (n.getScope().isPresent()) {
             n.getScope().get().accept(this, arg);
             printer.print(".");
@@ -885,9 +1476,32 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         printArguments(n.getArguments(), arg);
     }
 
+    /**
+     * prints the template of rule, its slots filled with the receiver and arguments
+     */
+    private void printRewrite(final RewriteRules.Rule rule, final Expression receiver, final NodeList<Expression> args, final Void arg) {
+        String[] literals = rule.getLiterals();
+        int[] slots = rule.getSlots();
+        for (int i = 0; i < slots.length; i++) {
+            printer.print(literals[i]);
+            if (RewriteRules.Rule.isAllArguments(slots[i])) {
+                for (final Iterator<Expression> argument = args.iterator(); argument.hasNext(); ) {
+                    argument.next().accept(this, arg);
+                    if (argument.hasNext()) {
+                        printer.print(", ");
+                    }
+                }
+            } else {
+                (slots[i] == 0 ? receiver : args.get(slots[i] - 1)).accept(this, arg);
+            }
+        }
+        printer.print(literals[slots.length]);
+    }
+
     @Override
     public void visit(final ObjectCreationExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getScope().isPresent()) {
             n.getScope().get().accept(this, arg);
             printer.print(".");
@@ -916,15 +1530,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
             } else  {
                 printer.print("((__this) => new class ");
             }
-            boolean isInterface = false;
-            Class c = null;
-            try {
-                c = ClassFinder.findClass(n.getType());
-                isInterface = c.isInterface();
-//                isInterface = ((ClassOrInterfaceDeclaration)parseClass(n.getType().getName())).isInterface();
-            } catch (Exception ignore) {
-            }
-            if(isInterface){
+            if(Boolean.TRUE.equals(configuration.getTypeResolver().isInterface(n.getType()))){
                 printer.print("implements ");
             }else {
                 printer.print("extends ");
@@ -951,6 +1557,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final UnaryExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getOperator().isPrefix()) {
             printer.print(n.getOperator().asString());
         }
@@ -965,6 +1572,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ConstructorDeclaration n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
 //        printModifiers(n.getModifiers());
 
@@ -997,6 +1605,10 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 //                }
 //            }
         }
+        if (configuration.isDeclarationOnly()) {
+            printer.print(";");
+            return;
+        }
         printer.print(" ");
         n.getBody().accept(this, arg);
     }
@@ -1006,6 +1618,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
         printOrphanCommentsBeforeThisChildNode(n);
 
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
         if (n.getParentNode().get() instanceof ClassOrInterfaceDeclaration
                 && ((ClassOrInterfaceDeclaration)n.getParentNode().get()).isInterface()) {
@@ -1042,7 +1655,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 //                }
 //            }
         }
-        if (!n.getBody().isPresent()) {
+        if (!n.getBody().isPresent() || configuration.isDeclarationOnly()) {
             printer.print(";");
         } else {
             printer.print(" ");
@@ -1053,6 +1666,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final Parameter n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), false, arg);
         printModifiers(n.getModifiers());
         if (n.getModifiers().contains(Modifier.FINAL)) {
@@ -1062,6 +1676,10 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
             printAnnotations(n.getVarArgsAnnotations(), false, arg);
             printer.print("...");
         }
+        if (getTypedVarArgs(n) != null) {
+            // the body converts the rest parameter to the typed array under the name of the parameter
+            printer.print("__");
+        }
         n.getName().accept(this, arg);
         printer.print(": ");
         n.getType().accept(this, arg);
@@ -1076,6 +1694,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ExplicitConstructorInvocationStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.isThis()) {
             printTypeArgs(n, arg);
             printer.print("this");
@@ -1094,6 +1713,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final VariableDeclarationExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), false, arg);
         printModifiers(n.getModifiers());
 
@@ -1118,12 +1738,14 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final LocalClassDeclarationStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getClassDeclaration().accept(this, arg);
     }
 
     @Override
     public void visit(final AssertStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("assert ");
         n.getCheck().accept(this, arg);
         if (n.getMessage().isPresent()) {
@@ -1137,9 +1759,15 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     public void visit(final BlockStmt n, final Void arg) {
         printOrphanCommentsBeforeThisChildNode(n);
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.println("{");
+        Parameter typedVarArgs = getTypedVarArgsOfBody(n);
         if (n.getStatements() != null) {
             printer.indent();
+            if (typedVarArgs != null) {
+                // before a super(...) too, which may pass the parameter on, TS allows statements not using this there
+                printTypedVarArgsConversion(typedVarArgs, arg);
+            }
             for (final Statement s : n.getStatements()) {
                 s.accept(this, arg);
                 printer.println();
@@ -1153,6 +1781,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final LabeledStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getLabel().accept(this, arg);
         printer.print(": ");
         n.getStatement().accept(this, arg);
@@ -1161,6 +1790,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final EmptyStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print(";");
     }
 
@@ -1168,6 +1798,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     public void visit(final ExpressionStmt n, final Void arg) {
         printOrphanCommentsBeforeThisChildNode(n);
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getExpression().accept(this, arg);
         printer.print(";");
     }
@@ -1175,6 +1806,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final SwitchStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("switch(");
         n.getSelector().accept(this, arg);
         printer.println(") {");
@@ -1191,6 +1823,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final SwitchEntryStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getLabel().isPresent()) {
             printer.print("case ");
             n.getLabel().get().accept(this, arg);
@@ -1212,6 +1845,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final BreakStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("break");
         n.getLabel().ifPresent(l -> printer.print(" ").print(l.getIdentifier()));
         printer.print(";");
@@ -1220,6 +1854,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ReturnStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("return");
         if (n.getExpression().isPresent()) {
             printer.print(" ");
@@ -1231,6 +1866,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final EnumDeclaration n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
         printModifiers(n.getModifiers());
 
@@ -1275,6 +1911,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final EnumConstantDeclaration n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
         n.getName().accept(this, arg);
 
@@ -1282,7 +1919,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
             printArguments(n.getArguments(), arg);
         }
 
-        if (!n.getClassBody().isEmpty()) {
+        if (!n.getClassBody().isEmpty() && !configuration.isDeclarationOnly()) {
             printer.println(" {");
             printer.indent();
             printMembers(n.getClassBody(), arg);
@@ -1293,7 +1930,9 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(final InitializerDeclaration n, final Void arg) {
+        if (configuration.isDeclarationOnly()) return;
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.isStatic()) {
             printer.print("static ");
         }
@@ -1303,6 +1942,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final IfStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("if (");
         n.getCondition().accept(this, arg);
         final boolean thenBlock = n.getThenStmt() instanceof BlockStmt;
@@ -1338,6 +1978,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final WhileStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("while (");
         n.getCondition().accept(this, arg);
         printer.print(") ");
@@ -1347,6 +1988,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ContinueStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("continue");
         n.getLabel().ifPresent(l -> printer.print(" ").print(l.getIdentifier()));
         printer.print(";");
@@ -1355,6 +1997,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final DoStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("do ");
         n.getBody().accept(this, arg);
         printer.print(" while (");
@@ -1365,6 +2008,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ForeachStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("for (");
         n.getVariable().accept(this, arg);
         printer.print(" : ");
@@ -1376,6 +2020,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ForStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("for (");
         if (n.getInitialization() != null) {
             for (final Iterator<Expression> i = n.getInitialization().iterator(); i.hasNext(); ) {
@@ -1407,6 +2052,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ThrowStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("throw ");
         n.getExpression().accept(this, arg);
         printer.print(";");
@@ -1415,6 +2061,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final SynchronizedStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("synchronized (");
         n.getExpression().accept(this, arg);
         printer.print(") ");
@@ -1424,6 +2071,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final TryStmt n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("try ");
         if (!n.getResources().isEmpty()) {
             printer.print("(");
@@ -1458,6 +2106,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final CatchClause n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print(" catch (");
         n.getParameter().accept(this, arg);
         printer.print(") ");
@@ -1467,6 +2116,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final AnnotationDeclaration n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
         printModifiers(n.getModifiers());
 
@@ -1484,6 +2134,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final AnnotationMemberDeclaration n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printMemberAnnotations(n.getAnnotations(), arg);
         printModifiers(n.getModifiers());
 
@@ -1501,6 +2152,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final MarkerAnnotationExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("/* @");
         n.getName().accept(this, arg);
         printer.print(" */");
@@ -1509,6 +2161,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final SingleMemberAnnotationExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("/* @");
         n.getName().accept(this, arg);
         printer.print("(");
@@ -1519,6 +2172,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final NormalAnnotationExpr n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         printer.print("/* @");
         n.getName().accept(this, arg);
         printer.print("(");
@@ -1537,6 +2191,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final MemberValuePair n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         n.getName().accept(this, arg);
         printer.print(" = ");
         n.getValue().accept(this, arg);
@@ -1565,6 +2220,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(LambdaExpr n, Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
 
         final NodeList<Parameter> parameters = n.getParameters();
         final boolean printPar = n.isEnclosingParameters();
@@ -1596,6 +2252,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(MethodReferenceExpr n, Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         Expression scope = n.getScope();
         String identifier = n.getIdentifier();
         if (scope != null) {
@@ -1612,6 +2269,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(TypeExpr n, Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.getType() != null) {
             n.getType().accept(this, arg);
         }
@@ -1627,6 +2285,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
     @Override
     public void visit(final ImportDeclaration n, final Void arg) {
         printJavaComment(n.getComment(), arg);
+        if (printSubstitution(n, arg)) return;
         if (n.isAsterisk()) {
             // TODO
             warnNotSupport(n, "not support Asterisk in import");
@@ -1645,6 +2304,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(ModuleDeclaration n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         printAnnotations(n.getAnnotations(), false, arg);
         printer.println();
         if (n.isOpen()) {
@@ -1659,6 +2319,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(ModuleRequiresStmt n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         printer.print("requires ");
         printModifiers(n.getModifiers());
         n.getName().accept(this, arg);
@@ -1667,6 +2328,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(ModuleExportsStmt n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         printer.print("exports ");
         n.getName().accept(this, arg);
         printPrePostFixOptionalList(n.getModuleNames(), arg, " to ", ", ", "");
@@ -1675,6 +2337,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(ModuleProvidesStmt n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         printer.print("provides ");
         n.getType().accept(this, arg);
         printPrePostFixRequiredList(n.getWithTypes(), arg, " with ", ", ", "");
@@ -1683,6 +2346,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(ModuleUsesStmt n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         printer.print("uses ");
         n.getType().accept(this, arg);
         printer.println(";");
@@ -1690,6 +2354,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(ModuleOpensStmt n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         printer.print("opens ");
         n.getName().accept(this, arg);
         printPrePostFixOptionalList(n.getModuleNames(), arg, " to ", ", ", "");
@@ -1698,6 +2363,7 @@ public class TSPrintVisitor implements VoidVisitor<Void> {
 
     @Override
     public void visit(UnparsableStmt n, Void arg) {
+        if (printSubstitution(n, arg)) return;
         printer.print("???;");
     }
 
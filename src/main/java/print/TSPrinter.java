@@ -20,6 +20,7 @@ package print;/*
  */
 
 import com.github.javaparser.ast.CompilationUnit;
+import util.ConversionEvents;
 
 /**
  * Pretty printer for AST nodes.
@@ -36,8 +37,11 @@ public class TSPrinter {
     }
 
     public String print(CompilationUnit compilationUnit) {
+        Object event = ConversionEvents.beginPrint();
         final TSPrintVisitor visitor = new TSPrintVisitor(configuration, compilationUnit);
         compilationUnit.accept(visitor, null);
-        return visitor.getSource();
+        String source = visitor.getSource();
+        ConversionEvents.endPrint(event, source.length());
+        return source;
     }
 }
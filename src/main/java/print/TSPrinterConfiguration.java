@@ -31,12 +31,80 @@ public class TSPrinterConfiguration {
     private String notSupportText = "java2ts not support";
     private String endOfLineCharacter = EOL;
     private boolean ignoreNotSupportException = true;
+    private int parallelMemberThreshold = 0;
+    private boolean declarationOnly = false;
+    private boolean integerSemantics = false;
+    private boolean typedArrays = false;
+    private TypeResolver typeResolver = new ReflectionTypeResolver();
+    private RewriteRules rewriteRules = RewriteRules.NONE;
+    private PassManager passManager = PassManager.NONE;
+    private boolean frozen = false;
+
+    public TSPrinterConfiguration() {
+    }
+
+    private TSPrinterConfiguration(TSPrinterConfiguration from) {
+        printComments = from.printComments;
+        printJavaDoc = from.printJavaDoc;
+        indent = from.indent;
+        notSupportText = from.notSupportText;
+        endOfLineCharacter = from.endOfLineCharacter;
+        ignoreNotSupportException = from.ignoreNotSupportException;
+        parallelMemberThreshold = from.parallelMemberThreshold;
+        declarationOnly = from.declarationOnly;
+        integerSemantics = from.integerSemantics;
+        typedArrays = from.typedArrays;
+        typeResolver = from.typeResolver;
+        rewriteRules = from.rewriteRules;
+        passManager = from.passManager;
+    }
+
+    /**
+     * @return an immutable copy of this configuration, its setters throw UnsupportedOperationException.
+     * A snapshot can be shared by printers running on different threads.
+     */
+    public TSPrinterConfiguration snapshot() {
+        if (frozen) return this;
+        TSPrinterConfiguration snapshot = new TSPrinterConfiguration(this);
+        snapshot.frozen = true;
+        return snapshot;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("configuration snapshot can't be changed");
+        }
+    }
+
+    /**
+     * @return the options that change the printed source, as part of conversion cache keys.
+     * parallelMemberThreshold is left out, it never changes the output
+     */
+    public String getFingerprint() {
+        return "printComments=" + printComments
+                + ";printJavaDoc=" + printJavaDoc
+                + ";indent=" + indent
+                + ";notSupportText=" + notSupportText
+                + ";endOfLineCharacter=" + endOfLineCharacter
+                + ";ignoreNotSupportException=" + ignoreNotSupportException
+                + ";declarationOnly=" + declarationOnly
+                + ";integerSemantics=" + integerSemantics
+                + ";typedArrays=" + typedArrays
+                + ";typeResolver=" + typeResolver.getFingerprint()
+                + ";rewriteRules=" + rewriteRules.getFingerprint()
+                + ";passes=" + passManager.getFingerprint();
+    }
 
     public String getIndent() {
         return indent;
     }
 
     public TSPrinterConfiguration setIndent(String indent) {
+        checkNotFrozen();
         this.indent = assertNotNull(indent);
         return this;
     }
@@ -54,11 +122,13 @@ public class TSPrinterConfiguration {
     }
 
     public TSPrinterConfiguration setPrintComments(boolean printComments) {
+        checkNotFrozen();
         this.printComments = printComments;
         return this;
     }
 
     public TSPrinterConfiguration setPrintJavaDoc(boolean printJavaDoc) {
+        checkNotFrozen();
         this.printJavaDoc = printJavaDoc;
         return this;
     }
@@ -68,6 +138,7 @@ public class TSPrinterConfiguration {
     }
 
     public TSPrinterConfiguration setEndOfLineCharacter(String endOfLineCharacter) {
+        checkNotFrozen();
         this.endOfLineCharacter = assertNotNull(endOfLineCharacter);
         return this;
     }
@@ -76,15 +147,116 @@ public class TSPrinterConfiguration {
         return ignoreNotSupportException;
     }
 
-    public void setIgnoreNotSupportException(boolean ignoreNotSupportException) {
+    public TSPrinterConfiguration setIgnoreNotSupportException(boolean ignoreNotSupportException) {
+        checkNotFrozen();
         this.ignoreNotSupportException = ignoreNotSupportException;
+        return this;
     }
 
     public String getNotSupportText() {
         return notSupportText;
     }
 
-    public void setNotSupportText(String notSupportText) {
+    public TSPrinterConfiguration setNotSupportText(String notSupportText) {
+        checkNotFrozen();
         this.notSupportText = notSupportText;
+        return this;
+    }
+
+    public int getParallelMemberThreshold() {
+        return parallelMemberThreshold;
+    }
+
+    /**
+     * Types with at least this many members print their members in parallel, the output is the same as serial printing.
+     * 0 (default) always prints serially.
+     */
+    public TSPrinterConfiguration setParallelMemberThreshold(int parallelMemberThreshold) {
+        checkNotFrozen();
+        this.parallelMemberThreshold = parallelMemberThreshold;
+        return this;
+    }
+
+    public boolean isDeclarationOnly() {
+        return declarationOnly;
+    }
+
+    /**
+     * Print .d.ts style declarations: types, fields with their types and method and constructor signatures.
+     * Bodies, initializers and initializer blocks are skipped without being visited, nested classes go into modules.
+     */
+    public TSPrinterConfiguration setDeclarationOnly(boolean declarationOnly) {
+        checkNotFrozen();
+        this.declarationOnly = declarationOnly;
+        return this;
+    }
+
+    public boolean isIntegerSemantics() {
+        return integerSemantics;
+    }
+
+    /**
+     * Print int and long arithmetic with Java semantics where the operand types are known: casts truncate with | 0
+     * and Math.trunc, int division truncates, int multiplication and >>> wrap at 32 bits, compound assignments
+     * narrow like Java's. Types come from {@link #getTypeResolver()}, the default one knows none.
+     */
+    public TSPrinterConfiguration setIntegerSemantics(boolean integerSemantics) {
+        checkNotFrozen();
+        this.integerSemantics = integerSemantics;
+        return this;
+    }
+
+    public boolean isTypedArrays() {
+        return typedArrays;
+    }
+
+    /**
+     * Print byte, short, int, long, float and double arrays as Int8Array, Int16Array, Int32Array, Float64Array,
+     * Float32Array and Float64Array: their types, creations and initializers, more dimensions as arrays of them.
+     * boolean and char arrays stay arrays, chars are printed as strings.
+     */
+    public TSPrinterConfiguration setTypedArrays(boolean typedArrays) {
+        checkNotFrozen();
+        this.typedArrays = typedArrays;
+        return this;
+    }
+
+    public TypeResolver getTypeResolver() {
+        return typeResolver;
+    }
+
+    /**
+     * Where class and expression types come from, {@link ReflectionTypeResolver} by default.
+     */
+    public TSPrinterConfiguration setTypeResolver(TypeResolver typeResolver) {
+        checkNotFrozen();
+        this.typeResolver = assertNotNull(typeResolver);
+        return this;
+    }
+
+    public RewriteRules getRewriteRules() {
+        return rewriteRules;
+    }
+
+    /**
+     * Rules rewriting method calls and field accesses, {@link RewriteRules#NONE} by default.
+     */
+    public TSPrinterConfiguration setRewriteRules(RewriteRules rewriteRules) {
+        checkNotFrozen();
+        this.rewriteRules = assertNotNull(rewriteRules);
+        return this;
+    }
+
+    public PassManager getPassManager() {
+        return passManager;
+    }
+
+    /**
+     * The passes run over every unit before it's printed, {@link PassManager#NONE} by default.
+     */
+    public TSPrinterConfiguration setPassManager(PassManager passManager) {
+        checkNotFrozen();
+        this.passManager = assertNotNull(passManager);
+        return this;
     }
 }
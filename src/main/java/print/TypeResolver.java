@@ -0,0 +1,32 @@
+package print;
+
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+
+/**
+ * Where the printer gets type information from.
+ * {@link ReflectionTypeResolver} (the default) looks classes up with {@link ClassFinder},
+ * {@link JavacTypeResolver} takes them from a javac attribution pass over the whole source set.
+ */
+public interface TypeResolver {
+
+    /**
+     * @return binary name (with $) of the class type refers to, null when it should be printed as written
+     */
+    String resolveClassName(ClassOrInterfaceType type);
+
+    /**
+     * @return whether type is an interface, null if unknown
+     */
+    Boolean isInterface(ClassOrInterfaceType type);
+
+    /**
+     * @return the type of expression as javac prints it ("int", "java.lang.String"), null if unknown
+     */
+    String getExpressionType(Expression expression);
+
+    /**
+     * @return changes whenever the resolver could resolve anything differently, part of the conversion cache keys
+     */
+    String getFingerprint();
+}
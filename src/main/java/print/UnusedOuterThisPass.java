@@ -0,0 +1,153 @@
+package print;
+
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.Name;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SimpleName;
+import com.github.javaparser.ast.expr.SuperExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds member classes and anonymous classes that never use the outer instance the printer wraps them in,
+ * ((Outer_this) => class ...)(this) and ((__this) => new class ...)(this), so they're printed without the
+ * wrapper and its extra closure per evaluation. Runs before the hoisting passes, which leave out the outer instance
+ * of these too and replace their substitutions.
+ * <p>
+ * A class uses the outer instance when it names the wrapper parameter, has an Outer.this or Outer.super of an
+ * enclosing class, or an unqualified name or method call that an instance member of an enclosing class declares and
+ * the class itself doesn't. Names inherited from supertypes can't be told apart without resolving them, they count
+ * as uses too when an enclosing class declares them.
+ */
+public class UnusedOuterThisPass implements Pass {
+    @Override
+    public String getName() {
+        return "drop-unused-this";
+    }
+
+    @Override
+    public void run(PassDecisions decisions) {
+        visit(decisions, decisions.getUnit());
+    }
+
+    private static void visit(PassDecisions decisions, Node node) {
+        if (node instanceof ClassOrInterfaceDeclaration) {
+            ClassOrInterfaceDeclaration n = (ClassOrInterfaceDeclaration) node;
+            Node parent = n.getParentNode().orElse(null);
+            if (parent instanceof TypeDeclaration && !n.getModifiers().contains(Modifier.STATIC)
+                    && !usesOuterInstance(n, n.getMembers(), ((TypeDeclaration<?>) parent).getName().getIdentifier() + "_this")) {
+                decisions.setOuterThisUnused(n);
+                if (decisions.getSubstitution(n) == null) {
+                    decisions.substitute(n, new Substitution()
+                            .memberAnnotations(n.getAnnotations())
+                            .modifiers(n.getModifiers())
+                            .node(n.getName())
+                            .text(" = ")
+                            .classContent(n, null)
+                            .text(";"));
+                }
+            }
+        } else if (node instanceof ObjectCreationExpr && ((ObjectCreationExpr) node).getAnonymousClassBody().isPresent()) {
+            ObjectCreationExpr n = (ObjectCreationExpr) node;
+            if (!usesOuterInstance(n, n.getAnonymousClassBody().get(), "__this")) {
+                decisions.setOuterThisUnused(n);
+                if (decisions.getSubstitution(n) == null) {
+                    decisions.substitute(n, unwrapped(n, decisions.getConfiguration().getTypeResolver()));
+                }
+            }
+        }
+        for (Node child : node.getChildNodes()) {
+            visit(decisions, child);
+        }
+    }
+
+    /**
+     * @return n printed as new class ... without the wrapper, as the printer prints it in a static field
+     */
+    private static Substitution unwrapped(ObjectCreationExpr n, TypeResolver typeResolver) {
+        Substitution substitution = new Substitution();
+        if (n.getScope().isPresent()) {
+            substitution.node(n.getScope().get()).text(".");
+        }
+        return substitution
+                .text(Boolean.TRUE.equals(typeResolver.isInterface(n.getType())) ? "new class implements " : "new class extends ")
+                .typeArguments(n.getTypeArguments().orElse(null))
+                .node(n.getType())
+                .text(" {").line()
+                .indent()
+                .members(n.getAnonymousClassBody().get())
+                .unindent()
+                .text("}(").nodes(n.getArguments(), ", ").text(")");
+    }
+
+    /**
+     * @param classNode a member class or an anonymous class creation
+     * @param members   its members, which hide the members of the enclosing classes with the same name
+     */
+    private static boolean usesOuterInstance(Node classNode, List<BodyDeclaration<?>> members, String parameter) {
+        Set<String> enclosingClasses = new HashSet<>();
+        Set<String> outerMembers = new HashSet<>();
+        for (Node enclosing = classNode.getParentNode().orElse(null); enclosing != null;
+             enclosing = enclosing.getParentNode().orElse(null)) {
+            if (enclosing instanceof TypeDeclaration) {
+                enclosingClasses.add(((TypeDeclaration<?>) enclosing).getNameAsString());
+                collectInstanceMembers(((TypeDeclaration<?>) enclosing).getMembers(), outerMembers);
+            } else if (enclosing instanceof ObjectCreationExpr && ((ObjectCreationExpr) enclosing).getAnonymousClassBody().isPresent()) {
+                collectInstanceMembers(((ObjectCreationExpr) enclosing).getAnonymousClassBody().get(), outerMembers);
+            }
+        }
+        Set<String> ownMembers = new HashSet<>();
+        collectInstanceMembers(members, ownMembers);
+        outerMembers.removeAll(ownMembers);
+        if (classNode instanceof ClassOrInterfaceDeclaration) {
+            enclosingClasses.remove(((ClassOrInterfaceDeclaration) classNode).getNameAsString());
+        }
+        for (BodyDeclaration<?> member : members) {
+            if (uses(member, parameter, enclosingClasses, outerMembers)) return true;
+        }
+        return false;
+    }
+
+    private static void collectInstanceMembers(List<BodyDeclaration<?>> members, Set<String> names) {
+        for (BodyDeclaration<?> member : members) {
+            if (member instanceof FieldDeclaration && !((FieldDeclaration) member).getModifiers().contains(Modifier.STATIC)) {
+                ((FieldDeclaration) member).getVariables().forEach(variable -> names.add(variable.getNameAsString()));
+            } else if (member instanceof MethodDeclaration && !((MethodDeclaration) member).getModifiers().contains(Modifier.STATIC)) {
+                names.add(((MethodDeclaration) member).getNameAsString());
+            }
+        }
+    }
+
+    private static boolean uses(Node node, String parameter, Set<String> enclosingClasses, Set<String> outerMembers) {
+        if (node instanceof SimpleName && ((SimpleName) node).getIdentifier().equals(parameter)
+                || node instanceof Name && ((Name) node).getIdentifier().equals(parameter)) {
+            return true;
+        }
+        if (node instanceof ThisExpr && ((ThisExpr) node).getClassExpr().isPresent()
+                && enclosingClasses.contains(((ThisExpr) node).getClassExpr().get().toString())
+                || node instanceof SuperExpr && ((SuperExpr) node).getClassExpr().isPresent()
+                && enclosingClasses.contains(((SuperExpr) node).getClassExpr().get().toString())) {
+            return true;
+        }
+        if (node instanceof NameExpr && outerMembers.contains(((NameExpr) node).getNameAsString())
+                || node instanceof MethodCallExpr && !((MethodCallExpr) node).getScope().isPresent()
+                && outerMembers.contains(((MethodCallExpr) node).getNameAsString())) {
+            return true;
+        }
+        for (Node child : node.getChildNodes()) {
+            if (uses(child, parameter, enclosingClasses, outerMembers)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package test;
+
+/**
+ * 测试单例 & 匿名类字段
+ */
+public class Test10 {
+    public static final Test10 INSTANCE = new Test10();
+
+    private int count;
+    private Runnable counter = new Runnable() {
+        @Override
+        public void run() {
+            count++;
+        }
+    };
+
+    public static Test10 getInstance() {
+        return INSTANCE;
+    }
+
+    public void start() {
+        counter.run();
+    }
+}
@@ -0,0 +1,27 @@
+package test;
+
+/**
+ * 测试整数运算
+ */
+public class Test11 {
+    private int total;
+    private long big;
+
+    public int mix(int a, int b, double d, long l) {
+        int product = a * b;
+        int quotient = a / b;
+        int truncated = (int) d;
+        int unsigned = a >>> 3;
+        short narrow = (short) a;
+        byte tiny = (byte) d;
+        long longQuotient = l / 3;
+        double half = d / 2;
+        a *= b;
+        a /= 2;
+        a += d;
+        total /= b;
+        total >>>= 1;
+        big /= 2;
+        return product + quotient + truncated + unsigned + narrow + tiny + (int) longQuotient + (int) half + a;
+    }
+}
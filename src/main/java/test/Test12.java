@@ -0,0 +1,42 @@
+package test;
+
+/**
+ * 测试多维数组 & 可变参数
+ */
+public class Test12 {
+    private int[] counts = new int[4];
+    private double[][] grid = new double[3][4];
+    private float[][] rows = new float[2][];
+    private long[][][] cube = new long[size()][2][3];
+    private byte[] bytes = {1, 2, 3};
+    private short[][] table = {{1, 2}, {3}};
+    private boolean[] flags = {true};
+
+    private static int size() {
+        return 1;
+    }
+
+    public int[][] square(int n) {
+        return new int[n * n][n * n];
+    }
+
+    public int[][] jagged(int n) {
+        return new int[n][size()];
+    }
+
+    public static int sum(int... values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    public double first(String name, double... values) {
+        return values[0];
+    }
+
+    public int[] head(int[]... rows) {
+        return rows[0];
+    }
+}
@@ -0,0 +1,146 @@
+package util;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Blanks out the bodies of methods, constructors and initializer blocks of a java source before parsing,
+ * for declaration only printing which never looks at them. Parsing dominates the conversion time and most
+ * of a typical source is bodies.
+ * <p>
+ * Body contents are replaced by spaces, line breaks are kept so positions stay the same. A brace block is a body
+ * when it directly follows ")" (optionally with a throws clause), "static" or a member boundary inside a type body.
+ * Anything misjudged as a body is a block, lambda body, switch or anonymous class body, which are all still
+ * valid empty.
+ */
+public class BodyBlanker {
+
+    public static CharBuffer blank(CharSequence source) {
+        char[] chars = source.toString().toCharArray();
+        // typeBody[depth]: whether the brace block opened at this depth holds type members
+        boolean[] typeBody = new boolean[16];
+        int depth = 0;
+        int i = 0;
+        while (i < chars.length) {
+            char c = chars[i];
+            if (c == '/' && i + 1 < chars.length && (chars[i + 1] == '/' || chars[i + 1] == '*')) {
+                i = skipComment(chars, i);
+            } else if (c == '"' || c == '\'') {
+                i = skipLiteral(chars, i);
+            } else if (c == '{') {
+                boolean insideType = depth > 0 && typeBody[depth - 1];
+                if (insideType && isBodyStart(chars, i)) {
+                    int end = findClosingBrace(chars, i);
+                    for (int j = i + 1; j < end; j++) {
+                        if (chars[j] != '\n' && chars[j] != '\r') chars[j] = ' ';
+                    }
+                    i = end + 1;
+                    continue;
+                }
+                if (depth == typeBody.length) {
+                    typeBody = Arrays.copyOf(typeBody, depth * 2);
+                }
+                // a top level block or one in a type body is a type declaration, unless it is an array initializer
+                typeBody[depth] = (depth == 0 || insideType) && !isArrayInitializer(chars, i);
+                depth++;
+                i++;
+            } else if (c == '}') {
+                if (depth > 0) depth--;
+                i++;
+            } else {
+                i++;
+            }
+        }
+        return CharBuffer.wrap(chars);
+    }
+
+    /**
+     * @return whether the brace starts an array initializer ("= {", "] {" or ", {")
+     */
+    private static boolean isArrayInitializer(char[] chars, int brace) {
+        int p = previousSignificant(chars, brace);
+        return p >= 0 && (chars[p] == '=' || chars[p] == ']' || chars[p] == ',');
+    }
+
+    private static boolean isBodyStart(char[] chars, int brace) {
+        int p = previousSignificant(chars, brace);
+        if (p < 0) return false;
+        char c = chars[p];
+        if (c == ')') return true;
+        // instance initializer
+        if (c == ';' || c == '{' || c == '}') return true;
+        if (endsWithWord(chars, p, "static")) return true;
+        // throws clause: ") throws A, b.C<D> {"
+        int start = p;
+        while (start >= 0 && isThrowsClauseChar(chars[start])) {
+            start--;
+        }
+        if (start < 0 || chars[start] != ')') return false;
+        String clause = new String(chars, start + 1, p - start).trim();
+        return clause.startsWith("throws") && clause.length() > "throws".length()
+                && !Character.isJavaIdentifierPart(clause.charAt("throws".length()));
+    }
+
+    private static boolean isThrowsClauseChar(char c) {
+        return Character.isJavaIdentifierPart(c) || Character.isWhitespace(c) || c == '.' || c == ','
+                || c == '<' || c == '>' || c == '?' || c == '[' || c == ']' || c == '@';
+    }
+
+    private static boolean endsWithWord(char[] chars, int last, String word) {
+        int start = last - word.length() + 1;
+        if (start < 0 || !new String(chars, start, word.length()).equals(word)) return false;
+        return start == 0 || !Character.isJavaIdentifierPart(chars[start - 1]);
+    }
+
+    private static int previousSignificant(char[] chars, int from) {
+        int p = from - 1;
+        while (p >= 0 && Character.isWhitespace(chars[p])) {
+            p--;
+        }
+        return p;
+    }
+
+    private static int findClosingBrace(char[] chars, int open) {
+        int depth = 0;
+        int i = open;
+        while (i < chars.length) {
+            char c = chars[i];
+            if (c == '/' && i + 1 < chars.length && (chars[i + 1] == '/' || chars[i + 1] == '*')) {
+                i = skipComment(chars, i);
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                i = skipLiteral(chars, i);
+                continue;
+            }
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+            i++;
+        }
+        return chars.length;
+    }
+
+    private static int skipComment(char[] chars, int start) {
+        if (chars[start + 1] == '/') {
+            int i = start + 2;
+            while (i < chars.length && chars[i] != '\n') i++;
+            return i;
+        }
+        int i = start + 2;
+        while (i + 1 < chars.length && !(chars[i] == '*' && chars[i + 1] == '/')) i++;
+        return Math.min(i + 2, chars.length);
+    }
+
+    private static int skipLiteral(char[] chars, int start) {
+        char quote = chars[start];
+        int i = start + 1;
+        while (i < chars.length && chars[i] != quote && chars[i] != '\n') {
+            if (chars[i] == '\\') i++;
+            i++;
+        }
+        return Math.min(i + 1, chars.length);
+    }
+}
@@ -0,0 +1,31 @@
+package util;
+
+import com.github.javaparser.Provider;
+
+import java.nio.CharBuffer;
+
+/**
+ * JavaParser input over already decoded source, it copies straight from the buffer
+ * instead of going through a Reader.
+ */
+public class CharBufferProvider implements Provider {
+    private final CharBuffer source;
+
+    public CharBufferProvider(CharBuffer source) {
+        this.source = source.duplicate();
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int len) {
+        if (!source.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(len, source.remaining());
+        source.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public void close() {
+    }
+}
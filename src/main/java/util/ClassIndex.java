@@ -0,0 +1,425 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of the classes of a class path (binary name, simple name, package and kind), built once from the
+ * class files with {@link #main} and memory mapped by later runs. Package lookups then need no jar scanning
+ * and no class loading, and the index stays in the mapped file instead of the heap.
+ * <p>
+ * File layout, big endian: magic, version, class count, then one 16 byte record per class (binary name, simple
+ * name and package as string offsets, kind) sorted by simple name and then class path order, then the record numbers
+ * sorted by binary name, then the strings, each an unsigned short length and UTF-8 bytes.
+ */
+public class ClassIndex {
+    private static final int MAGIC = 0x4A325449;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_SIZE = 16;
+
+    private static final Kind[] KINDS = Kind.values();
+    private static volatile ClassIndex shared;
+
+    public enum Kind {
+        CLASS, INTERFACE, ENUM, ANNOTATION
+    }
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int byBinaryNameStart;
+    private final int stringsStart;
+
+    private ClassIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("not a class index of version " + VERSION);
+        }
+        count = buffer.getInt(8);
+        byBinaryNameStart = HEADER_SIZE + count * RECORD_SIZE;
+        stringsStart = byBinaryNameStart + count * 4;
+    }
+
+    /**
+     * Maps an index file written by {@link #write}.
+     */
+    public static ClassIndex load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ClassIndex(mapped);
+        }
+    }
+
+    /**
+     * @return the index package lookups use, null to scan the class path as before
+     */
+    public static ClassIndex shared() {
+        return shared;
+    }
+
+    public static void setShared(ClassIndex index) {
+        shared = index;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Same matching as {@link ClassUtil#getClasses} followed by a simple name comparison: classes whose package
+     * starts with packageName (sub packages included) and whose simple name is simpleName.
+     *
+     * @return binary name of the first match in class path order, null if none
+     */
+    public String findInPackage(String packageName, String simpleName) {
+        byte[] simple = simpleName.getBytes(StandardCharsets.UTF_8);
+        byte[] packagePrefix = packageName.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count;
+        // first record with this simple name
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(stringAt(mid, 4), simple) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int record = low; record < count && compare(stringAt(record, 4), simple) == 0; record++) {
+            if (startsWith(stringAt(record, 8), packagePrefix)) {
+                return readString(stringAt(record, 0));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the kind of the class, null if it is not in the index
+     */
+    public Kind getKind(String binaryName) {
+        byte[] name = binaryName.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int record = buffer.getInt(byBinaryNameStart + mid * 4);
+            int c = compare(stringAt(record, 0), name);
+            if (c == 0) {
+                return KINDS[buffer.get(HEADER_SIZE + record * RECORD_SIZE + 12)];
+            }
+            if (c < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return null;
+    }
+
+    private int stringAt(int record, int field) {
+        return stringsStart + buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + field);
+    }
+
+    /**
+     * compares the UTF-8 bytes of the string at offset with key, in the order {@link #write} sorts by
+     */
+    private int compare(int offset, byte[] key) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int c = (buffer.get(offset + 2 + i) & 0xFF) - (key[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return length - key.length;
+    }
+
+    private boolean startsWith(int offset, byte[] prefix) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        if (length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + 2 + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private String readString(int offset) {
+        byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * args: indexFile classPathEntry...
+     * <br>classPathEntry: a jar, a class directory or "jrt" for the modules of the running JDK (9+)
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: ClassIndex indexFile (jar|classDir|jrt)...");
+            return;
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            scan(args[i], entries);
+        }
+        Path indexFile = Paths.get(args[0]);
+        write(entries, indexFile);
+        int[] kinds = new int[KINDS.length];
+        for (Entry entry : entries) {
+            kinds[entry.kind.ordinal()]++;
+        }
+        System.out.println("indexed " + entries.size() + " classes (" + kinds[Kind.INTERFACE.ordinal()] + " interfaces, "
+                + kinds[Kind.ENUM.ordinal()] + " enums, " + kinds[Kind.ANNOTATION.ordinal()] + " annotations) into "
+                + indexFile + ", " + Files.size(indexFile) / 1024 + " KB");
+    }
+
+    private static void scan(String classPathEntry, List<Entry> entries) throws IOException {
+        if (classPathEntry.equals("jrt")) {
+            FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+            try (Stream<Path> files = Files.walk(jrt.getPath("/modules"))) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    // /modules/<module>/<class path>
+                    if (file.getNameCount() > 2 && isClassFile(file.toString())) {
+                        addEntry(Files.readAllBytes(file), entries);
+                    }
+                }
+            }
+            return;
+        }
+        Path path = Paths.get(classPathEntry);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (isClassFile(file.toString())) {
+                        addEntry(Files.readAllBytes(file), entries);
+                    }
+                }
+            }
+        } else {
+            try (ZipFile jar = new ZipFile(path.toFile())) {
+                Enumeration<? extends ZipEntry> jarEntries = jar.entries();
+                while (jarEntries.hasMoreElements()) {
+                    ZipEntry jarEntry = jarEntries.nextElement();
+                    if (!jarEntry.isDirectory() && isClassFile(jarEntry.getName())) {
+                        try (InputStream in = jar.getInputStream(jarEntry)) {
+                            addEntry(readAll(in), entries);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void addEntry(byte[] classFile, List<Entry> entries) throws IOException {
+        Entry entry = readClassFile(classFile);
+        if (entry != null) {
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * Reads the name, kind and simple name (from the InnerClasses attribute, as {@link Class#getSimpleName}) of a
+     * class file, skipping over everything else.
+     */
+    private static Entry readClassFile(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != 0xCAFEBABE) return null;
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int constantCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantCount];
+        int[] classNameIndex = new int[constantCount];
+        for (int i = 1; i < constantCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNameIndex[i] = in.readUnsignedShort();
+                    break;
+                case 8: case 16: case 19: case 20: // String, MethodType, Module, Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    in.skipBytes(4);
+                    break;
+                case 5: case 6: // Long, Double take two slots
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag " + tag);
+            }
+        }
+        int access = in.readUnsignedShort();
+        int thisClass = in.readUnsignedShort();
+        String binaryName = utf8[classNameIndex[thisClass]].replace('/', '.');
+        in.skipBytes(2);
+        in.skipBytes(in.readUnsignedShort() * 2);
+        for (int members = 0; members < 2; members++) {
+            int memberCount = in.readUnsignedShort();
+            for (int i = 0; i < memberCount; i++) {
+                in.skipBytes(6);
+                skipAttributes(in);
+            }
+        }
+        int lastDot = binaryName.lastIndexOf('.');
+        String simpleName = binaryName.substring(lastDot + 1);
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (!"InnerClasses".equals(attributeName)) {
+                in.skipBytes(length);
+                continue;
+            }
+            int classes = in.readUnsignedShort();
+            for (int c = 0; c < classes; c++) {
+                int innerClass = in.readUnsignedShort();
+                in.skipBytes(2);
+                int innerName = in.readUnsignedShort();
+                int innerAccess = in.readUnsignedShort();
+                if (innerClass == thisClass) {
+                    // anonymous classes have no name
+                    simpleName = innerName == 0 ? "" : utf8[innerName];
+                    access = innerAccess;
+                }
+            }
+        }
+        Kind kind = (access & 0x2000) != 0 ? Kind.ANNOTATION
+                : (access & 0x0200) != 0 ? Kind.INTERFACE
+                : (access & 0x4000) != 0 ? Kind.ENUM : Kind.CLASS;
+        return new Entry(binaryName, simpleName, lastDot < 0 ? "" : binaryName.substring(0, lastDot), kind);
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            in.skipBytes(2);
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    public static void write(List<Entry> entries, Path indexFile) throws IOException {
+        // the first entry of a class wins, as the first one on the class path would be loaded
+        Map<String, Entry> unique = new HashMap<>();
+        List<Entry> records = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (unique.putIfAbsent(entry.binaryName, entry) == null) {
+                records.add(entry);
+            }
+        }
+        // stable, classes of the same simple name stay in class path order as a scan finds them
+        records.sort(Comparator.comparing((Entry e) -> e.simpleName, ClassIndex::compareUtf8));
+        List<Integer> byBinaryName = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            byBinaryName.add(i);
+        }
+        byBinaryName.sort(Comparator.comparing(i -> records.get(i).binaryName, ClassIndex::compareUtf8));
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringsOut = new DataOutputStream(strings);
+        Map<String, Integer> stringOffsets = new HashMap<>();
+        Files.createDirectories(indexFile.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(records.size());
+            for (Entry record : records) {
+                out.writeInt(stringOffset(record.binaryName, stringOffsets, stringsOut));
+                out.writeInt(stringOffset(record.simpleName, stringOffsets, stringsOut));
+                out.writeInt(stringOffset(record.packageName, stringOffsets, stringsOut));
+                out.writeByte(record.kind.ordinal());
+                out.write(new byte[3]);
+            }
+            for (int record : byBinaryName) {
+                out.writeInt(record);
+            }
+            strings.writeTo(out);
+        }
+    }
+
+    private static int stringOffset(String s, Map<String, Integer> offsets, DataOutputStream strings) throws IOException {
+        Integer offset = offsets.get(s);
+        if (offset == null) {
+            offset = strings.size();
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            strings.writeShort(bytes.length);
+            strings.write(bytes);
+            offsets.put(s, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * the order of the lookups, unsigned UTF-8 bytes
+     */
+    private static int compareUtf8(String a, String b) {
+        byte[] x = a.getBytes(StandardCharsets.UTF_8);
+        byte[] y = b.getBytes(StandardCharsets.UTF_8);
+        int n = Math.min(x.length, y.length);
+        for (int i = 0; i < n; i++) {
+            int c = (x[i] & 0xFF) - (y[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return x.length - y.length;
+    }
+
+    public static class Entry {
+        final String binaryName;
+        final String simpleName;
+        final String packageName;
+        final Kind kind;
+
+        public Entry(String binaryName, String simpleName, String packageName, Kind kind) {
+            this.binaryName = binaryName;
+            this.simpleName = simpleName;
+            this.packageName = packageName;
+            this.kind = kind;
+        }
+    }
+}
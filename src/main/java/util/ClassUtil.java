@@ -78,6 +78,7 @@ public class ClassUtil {
      * 从包package中获取所有的Class
      */
     public static List<Class<?>> getClasses(String packageName) {
+        ConverterStats.get().packageScanned();
 
         //第一个class类的集合
         List<Class<?>> classes = new ArrayList<Class<?>>();
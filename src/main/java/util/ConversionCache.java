@@ -0,0 +1,316 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Content addressed conversion cache in a directory that many processes can share.
+ * <p>
+ * Entries are keyed by the hash of the converter version, the printer configuration and the source,
+ * and hold the resolution facts the conversion depended on, the TS code and the warnings (deflated).
+ * They are appended to a single pack file, an index file maps each key to the pack offsets of its entries.
+ * Both files are only ever appended to, under a file lock. Readers don't lock: an index record is written
+ * after its pack record, and pack records are checked with a CRC before use.
+ * Open one instance per directory in a JVM, file locks are held by the whole process.
+ */
+public class ConversionCache implements Closeable {
+    private static final int RECORD_MAGIC = 0x4A325443; // J2TC
+    private static final int KEY_LENGTH = 32;
+    private static final int INDEX_RECORD_LENGTH = KEY_LENGTH + 8;
+
+    private final FileChannel packChannel;
+    private final FileChannel indexChannel;
+    private final FileChannel lockChannel;
+    private final Map<String, List<Long>> index = new ConcurrentHashMap<>();
+    private final Map<String, String> evaluatedFacts = new ConcurrentHashMap<>();
+    private long indexReadPosition = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ConversionCache(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        packChannel = FileChannel.open(directory.resolve("cache.pack"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(directory.resolve("cache.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lockChannel = FileChannel.open(directory.resolve("cache.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        refreshIndex();
+    }
+
+    /**
+     * @return SHA-256 of the converter version, the configuration fingerprint and the source, as hex
+     */
+    public static String key(String converterVersion, String configurationFingerprint, CharSequence source) {
+        MessageDigest digest = newDigest();
+        digest.update(converterVersion.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(configurationFingerprint.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(source.toString().getBytes(StandardCharsets.UTF_8));
+        return OutputWriter.toHex(digest.digest());
+    }
+
+    /**
+     * @return hash of every class file in the directory or jar c was loaded from, so it changes whenever any class
+     * of the converter does, without a list of them to keep up to date. If that location can't be read, a random
+     * version: nothing cached by another process is trusted
+     */
+    public static String versionOf(Class<?> c) {
+        MessageDigest digest = newDigest();
+        try {
+            CodeSource codeSource = c.getProtectionDomain().getCodeSource();
+            if (codeSource == null) throw new IOException("no code source of " + c.getName());
+            Path location = Paths.get(codeSource.getLocation().toURI());
+            if (Files.isDirectory(location)) {
+                List<Path> classFiles;
+                try (Stream<Path> files = Files.walk(location)) {
+                    classFiles = files.filter(file -> file.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+                }
+                for (Path classFile : classFiles) {
+                    digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(classFile));
+                }
+            } else {
+                try (ZipFile jar = new ZipFile(location.toFile())) {
+                    List<? extends ZipEntry> entries = Collections.list(jar.entries());
+                    entries.sort(Comparator.comparing(ZipEntry::getName));
+                    for (ZipEntry entry : entries) {
+                        if (!entry.getName().endsWith(".class")) continue;
+                        digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                        try (InputStream in = jar.getInputStream(entry)) {
+                            byte[] buffer = new byte[8192];
+                            int read;
+                            while ((read = in.read(buffer)) != -1) {
+                                digest.update(buffer, 0, read);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            digest.update(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return OutputWriter.toHex(digest.digest());
+    }
+
+    /**
+     * @return the newest entry for key whose resolution facts still hold, or null
+     */
+    public Entry get(String key) throws IOException {
+        List<Long> offsets = index.get(key);
+        if (offsets == null) {
+            refreshIndex();
+            offsets = index.get(key);
+        }
+        if (offsets != null) {
+            List<Long> newestFirst = new ArrayList<>(offsets);
+            Collections.reverse(newestFirst);
+            for (long offset : newestFirst) {
+                Entry entry = readEntry(offset, key);
+                if (entry != null && entry.resolutionFacts.isStillValid(evaluatedFacts)) {
+                    hits.incrementAndGet();
+                    return entry;
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, ResolutionFacts resolutionFacts, String tsCode, List<String> warnings) throws IOException {
+        byte[] record = encodeRecord(key, resolutionFacts, tsCode, warnings);
+        synchronized (this) {
+            try (FileLock ignored = lockChannel.lock()) {
+                long offset = packChannel.size();
+                writeFully(packChannel, ByteBuffer.wrap(record), offset);
+                ByteBuffer indexRecord = ByteBuffer.allocate(INDEX_RECORD_LENGTH);
+                indexRecord.put(fromHex(key)).putLong(offset).flip();
+                writeFully(indexChannel, indexRecord, indexChannel.size());
+            }
+        }
+        refreshIndex();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        packChannel.close();
+        indexChannel.close();
+        lockChannel.close();
+    }
+
+    /**
+     * Reads the index records appended since the last refresh, by this or other processes.
+     */
+    private synchronized void refreshIndex() throws IOException {
+        long size = indexChannel.size();
+        long complete = size - (size - indexReadPosition) % INDEX_RECORD_LENGTH;
+        if (complete <= indexReadPosition) return;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (complete - indexReadPosition));
+        readFully(indexChannel, buffer, indexReadPosition);
+        buffer.flip();
+        byte[] key = new byte[KEY_LENGTH];
+        while (buffer.remaining() >= INDEX_RECORD_LENGTH) {
+            buffer.get(key);
+            long offset = buffer.getLong();
+            List<Long> offsets = index.computeIfAbsent(OutputWriter.toHex(key), k -> Collections.synchronizedList(new ArrayList<>()));
+            if (!offsets.contains(offset)) {
+                offsets.add(offset);
+            }
+        }
+        indexReadPosition = complete;
+    }
+
+    private byte[] encodeRecord(String key, ResolutionFacts resolutionFacts, String tsCode, List<String> warnings) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(payload))) {
+            writeString(out, resolutionFacts.serialize());
+            writeString(out, tsCode);
+            out.writeInt(warnings.size());
+            for (String warning : warnings) {
+                writeString(out, warning);
+            }
+        }
+        byte[] body = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer record = ByteBuffer.allocate(4 + KEY_LENGTH + 4 + body.length + 8);
+        record.putInt(RECORD_MAGIC).put(fromHex(key)).putInt(body.length).put(body).putLong(crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * @return the entry at offset, null if the record is damaged or belongs to another key
+     */
+    private Entry readEntry(long offset, String key) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4 + KEY_LENGTH + 4);
+        if (!readFully(packChannel, header, offset)) return null;
+        header.flip();
+        byte[] recordKey = new byte[KEY_LENGTH];
+        if (header.getInt() != RECORD_MAGIC) return null;
+        header.get(recordKey);
+        if (!OutputWriter.toHex(recordKey).equals(key)) return null;
+        int bodyLength = header.getInt();
+        if (bodyLength < 0 || offset + header.capacity() + bodyLength + 8 > packChannel.size()) return null;
+        ByteBuffer body = ByteBuffer.allocate(bodyLength + 8);
+        if (!readFully(packChannel, body, offset + header.capacity())) return null;
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, bodyLength);
+        if (body.getLong(bodyLength) != crc.getValue()) return null;
+
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(body.array(), 0, bodyLength)))) {
+            ResolutionFacts resolutionFacts = ResolutionFacts.parse(readString(in));
+            String tsCode = readString(in);
+            int warningCount = in.readInt();
+            List<String> warnings = new ArrayList<>(warningCount);
+            for (int i = 0; i < warningCount; i++) {
+                warnings.add(readString(in));
+            }
+            return new Entry(resolutionFacts, tsCode, warnings);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) return false;
+            position += read;
+        }
+        return true;
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Entry {
+        private final ResolutionFacts resolutionFacts;
+        private final String tsCode;
+        private final List<String> warnings;
+
+        Entry(ResolutionFacts resolutionFacts, String tsCode, List<String> warnings) {
+            this.resolutionFacts = resolutionFacts;
+            this.tsCode = tsCode;
+            this.warnings = warnings;
+        }
+
+        public String getTsCode() {
+            return tsCode;
+        }
+
+        public List<String> getWarnings() {
+            return warnings;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package util;
+
+/**
+ * Java Flight Recorder events for parse, class lookup, print and write, tagged with the file being converted.
+ * <p>
+ * Each begin method returns the started event, or null when jdk.jfr is missing or the event isn't recorded;
+ * the matching end method accepts null. Without jdk.jfr the event classes are never loaded.
+ */
+public class ConversionEvents {
+    private static final boolean AVAILABLE = isJfrAvailable();
+    private static final ThreadLocal<String> CURRENT_FILE = new ThreadLocal<>();
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tags the events of this thread with path, until the returned scope is closed.
+     */
+    public static FileScope enterFile(String path) {
+        String previous = CURRENT_FILE.get();
+        CURRENT_FILE.set(path);
+        return new FileScope(previous);
+    }
+
+    public static String currentFile() {
+        return CURRENT_FILE.get();
+    }
+
+    public static Object beginParse() {
+        return AVAILABLE ? JfrEvents.beginParse() : null;
+    }
+
+    public static void endParse(Object event, long sourceChars) {
+        if (event != null) JfrEvents.endParse(event, CURRENT_FILE.get(), sourceChars);
+    }
+
+    public static Object beginFindClass() {
+        return AVAILABLE ? JfrEvents.beginFindClass() : null;
+    }
+
+    /**
+     * @param className the class found, null when the lookup failed
+     * @param strategy  inner, import, package or java.lang, null when nothing resolved
+     */
+    public static void endFindClass(Object event, String typeName, String className, String strategy) {
+        if (event != null) JfrEvents.endFindClass(event, CURRENT_FILE.get(), typeName, className, strategy);
+    }
+
+    public static Object beginPrint() {
+        return AVAILABLE ? JfrEvents.beginPrint() : null;
+    }
+
+    public static void endPrint(Object event, long outputChars) {
+        if (event != null) JfrEvents.endPrint(event, CURRENT_FILE.get(), outputChars);
+    }
+
+    public static Object beginWrite() {
+        return AVAILABLE ? JfrEvents.beginWrite() : null;
+    }
+
+    public static void endWrite(Object event, String path, long bytes, boolean written) {
+        if (event != null) JfrEvents.endWrite(event, path, bytes, written);
+    }
+
+    public static class FileScope implements AutoCloseable {
+        private final String previous;
+
+        private FileScope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT_FILE.remove();
+            } else {
+                CURRENT_FILE.set(previous);
+            }
+        }
+    }
+}
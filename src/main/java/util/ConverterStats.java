@@ -0,0 +1,141 @@
+package util;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JVM wide converter counters, always collected. {@link #register()} exposes them over JMX.
+ */
+public class ConverterStats implements ConverterStatsMXBean {
+    public static final String OBJECT_NAME = "java2ts:type=ConverterStats";
+
+    private static final ConverterStats INSTANCE = new ConverterStats();
+
+    private final LongAdder filesConverted = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, LongAdder> notSupportCounts = new ConcurrentHashMap<>();
+    private final LongAdder classLookups = new LongAdder();
+    private final LongAdder classLookupMisses = new LongAdder();
+    private final LongAdder forNameNanos = new LongAdder();
+    private final LongAdder packageScans = new LongAdder();
+
+    private ConverterStats() {
+    }
+
+    public static ConverterStats get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the stats with the platform MBean server, does nothing when already registered.
+     */
+    public static void register() throws JMException {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException ignore) {
+        }
+    }
+
+    public void fileConverted(long latencyNanos) {
+        filesConverted.increment();
+        latency.record(latencyNanos);
+    }
+
+    public void bytesRead(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void bytesWritten(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    public void notSupported(String reason) {
+        notSupportCounts.computeIfAbsent(reason, r -> new LongAdder()).increment();
+    }
+
+    public void classLookedUp(boolean found) {
+        classLookups.increment();
+        if (!found) classLookupMisses.increment();
+    }
+
+    public void forNameTime(long nanos) {
+        forNameNanos.add(nanos);
+    }
+
+    public void packageScanned() {
+        packageScans.increment();
+    }
+
+    @Override
+    public long getFilesConverted() {
+        return filesConverted.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMillis() {
+        return latency.getMeanNanos() / 1e6;
+    }
+
+    @Override
+    public double getP99LatencyMillis() {
+        return latency.getQuantileNanos(0.99) / 1e6;
+    }
+
+    @Override
+    public Map<String, Long> getNotSupportCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        notSupportCounts.forEach((reason, count) -> counts.put(reason, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getClassLookups() {
+        return classLookups.sum();
+    }
+
+    @Override
+    public long getClassLookupMisses() {
+        return classLookupMisses.sum();
+    }
+
+    @Override
+    public double getForNameMillis() {
+        return forNameNanos.sum() / 1e6;
+    }
+
+    @Override
+    public long getPackageScans() {
+        return packageScans.sum();
+    }
+
+    @Override
+    public void reset() {
+        filesConverted.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        latency.reset();
+        notSupportCounts.clear();
+        classLookups.reset();
+        classLookupMisses.reset();
+        forNameNanos.reset();
+        packageScans.reset();
+    }
+}
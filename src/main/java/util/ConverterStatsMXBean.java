@@ -0,0 +1,33 @@
+package util;
+
+import java.util.Map;
+
+/**
+ * Live statistics of the converters in this JVM, registered as java2ts:type=ConverterStats.
+ */
+public interface ConverterStatsMXBean {
+    long getFilesConverted();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    double getMeanLatencyMillis();
+
+    double getP99LatencyMillis();
+
+    /**
+     * @return warnNotSupport count by reason
+     */
+    Map<String, Long> getNotSupportCounts();
+
+    long getClassLookups();
+
+    long getClassLookupMisses();
+
+    double getForNameMillis();
+
+    long getPackageScans();
+
+    void reset();
+}
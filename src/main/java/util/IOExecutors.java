@@ -0,0 +1,58 @@
+package util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the conversion stages: blocking file I/O runs apart from the core-sized pool doing parse/emit,
+ * so slow storage doesn't hold the CPU workers.
+ * <p>
+ * The project still builds for Java 8, virtual threads are looked up reflectively and only used when the running JDK has them.
+ */
+public class IOExecutors {
+
+    public static boolean isVirtualThreadSupported() {
+        return findVirtualThreadFactoryMethod() != null;
+    }
+
+    /**
+     * @param virtualThreads run each I/O task on its own virtual thread if the JDK supports it,
+     *                       otherwise (or if false) on a cached pool of daemon platform threads
+     */
+    public static ExecutorService newIOExecutor(boolean virtualThreads) {
+        if (virtualThreads) {
+            Method method = findVirtualThreadFactoryMethod();
+            if (method != null) {
+                try {
+                    return (ExecutorService) method.invoke(null);
+                } catch (ReflectiveOperationException ignore) {
+                }
+            }
+        }
+        return Executors.newCachedThreadPool(daemonThreadFactory("java2ts-io-"));
+    }
+
+    public static ExecutorService newCpuExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreadFactory("java2ts-cpu-"));
+    }
+
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
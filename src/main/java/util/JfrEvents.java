@@ -0,0 +1,130 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JFR event types, only loaded through {@link ConversionEvents} once jdk.jfr is known to be present.
+ */
+class JfrEvents {
+    static Object beginParse() {
+        return begin(new ParseEvent());
+    }
+
+    static Object beginFindClass() {
+        return begin(new FindClassEvent());
+    }
+
+    static Object beginPrint() {
+        return begin(new PrintEvent());
+    }
+
+    static Object beginWrite() {
+        return begin(new WriteEvent());
+    }
+
+    private static Object begin(Event event) {
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+    static void endParse(Object event, String path, long sourceChars) {
+        ParseEvent parseEvent = (ParseEvent) event;
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            parseEvent.path = path;
+            parseEvent.sourceChars = sourceChars;
+            parseEvent.commit();
+        }
+    }
+
+    static void endFindClass(Object event, String path, String typeName, String className, String strategy) {
+        FindClassEvent findClassEvent = (FindClassEvent) event;
+        findClassEvent.end();
+        if (findClassEvent.shouldCommit()) {
+            findClassEvent.path = path;
+            findClassEvent.typeName = typeName;
+            findClassEvent.found = className != null;
+            findClassEvent.className = className;
+            findClassEvent.strategy = strategy;
+            findClassEvent.commit();
+        }
+    }
+
+    static void endPrint(Object event, String path, long outputChars) {
+        PrintEvent printEvent = (PrintEvent) event;
+        printEvent.end();
+        if (printEvent.shouldCommit()) {
+            printEvent.path = path;
+            printEvent.outputChars = outputChars;
+            printEvent.commit();
+        }
+    }
+
+    static void endWrite(Object event, String path, long bytes, boolean written) {
+        WriteEvent writeEvent = (WriteEvent) event;
+        writeEvent.end();
+        if (writeEvent.shouldCommit()) {
+            writeEvent.path = path;
+            writeEvent.bytes = bytes;
+            writeEvent.written = written;
+            writeEvent.commit();
+        }
+    }
+
+    @Name("java2ts.Parse")
+    @Label("Parse")
+    @Category("Java2TS")
+    static class ParseEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Source Characters")
+        long sourceChars;
+    }
+
+    @Name("java2ts.FindClass")
+    @Label("Find Class")
+    @Category("Java2TS")
+    @Description("ClassFinder.findClass, strategy is what resolved the outermost type: inner, import, package or java.lang")
+    static class FindClassEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Type Name")
+        String typeName;
+        @Label("Found")
+        boolean found;
+        @Label("Class Name")
+        String className;
+        @Label("Strategy")
+        String strategy;
+    }
+
+    @Name("java2ts.Print")
+    @Label("Print")
+    @Category("Java2TS")
+    static class PrintEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Output Characters")
+        long outputChars;
+    }
+
+    @Name("java2ts.Write")
+    @Label("Write")
+    @Category("Java2TS")
+    static class WriteEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Written")
+        @Description("false when the file already had this content")
+        boolean written;
+    }
+}
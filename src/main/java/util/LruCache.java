@@ -0,0 +1,118 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size bounded, thread-safe cache evicting the least recently used entries, with hit and miss counts.
+ * <p>
+ * Keys are spread over independently locked segments, each an access ordered LinkedHashMap, so threads looking up
+ * different keys rarely wait on each other. Loading happens outside the locks: two threads missing the same key may
+ * both load it, the loader must not care. Null is a value like any other, cached too.
+ */
+public class LruCache<K, V> {
+    private static final Object NULL = new Object();
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize < 1: " + maxSize);
+        this.maxSize = maxSize;
+        int segmentCount = Math.min(SEGMENTS, maxSize);
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(Math.max(1, maxSize / segmentCount), evictions);
+        }
+    }
+
+    /**
+     * @return the cached value of key, else the value loader gives, which is cached
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Segment segment = segments[(key.hashCode() & 0x7fffffff) % segments.length];
+        Object value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value == NULL ? null : (V) value;
+        }
+        misses.increment();
+        V loaded = loader.apply(key);
+        synchronized (segment) {
+            segment.put(key, loaded == null ? NULL : loaded);
+        }
+        return loaded;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return hits / lookups, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d hits, %d misses (%.1f%% hit rate), %d evictions, %d/%d entries",
+                getHits(), getMisses(), getHitRate() * 100, getEvictions(), size(), maxSize);
+    }
+
+    private static class Segment extends LinkedHashMap<Object, Object> {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
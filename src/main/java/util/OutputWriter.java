@@ -0,0 +1,214 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes output files only when their content changed, so unchanged outputs keep their mtime
+ * and downstream watchers (tsc --watch, bundlers) don't rebuild them.
+ * <p>
+ * A changed file is written to a temp file next to the target and moved over it.
+ * Content hashes can be kept in an index file, then an unchanged output isn't even read back.
+ */
+public class OutputWriter {
+    private final Charset charset;
+    private final BufferPool bufferPool;
+    private final Path hashIndexFile;
+    private final Map<Path, HashRecord> hashes = new ConcurrentHashMap<>();
+    private final AtomicInteger writtenCount = new AtomicInteger();
+    private final AtomicInteger skippedCount = new AtomicInteger();
+
+    public OutputWriter() {
+        this(StandardCharsets.UTF_8, BufferPool.shared(), null);
+    }
+
+    /**
+     * @param hashIndexFile file keeping the content hashes between runs, null to only compare with the existing file
+     */
+    public OutputWriter(Charset charset, BufferPool bufferPool, Path hashIndexFile) {
+        this.charset = charset;
+        this.bufferPool = bufferPool;
+        this.hashIndexFile = hashIndexFile;
+        if (hashIndexFile != null) {
+            loadHashIndex();
+        }
+    }
+
+    /**
+     * @return true if the file was written, false if it already had this content
+     */
+    public boolean write(Path file, String content) throws IOException {
+        Object event = ConversionEvents.beginWrite();
+        byte[] bytes = content.getBytes(charset);
+        ConverterStats.get().bytesWritten(bytes.length);
+        boolean written = false;
+        try {
+            written = writeIfChanged(file, bytes);
+            return written;
+        } finally {
+            ConversionEvents.endWrite(event, file.toString(), bytes.length, written);
+        }
+    }
+
+    private boolean writeIfChanged(Path file, byte[] bytes) throws IOException {
+        Path target = file.toAbsolutePath().normalize();
+        String hash = hash(bytes);
+        if (Files.isRegularFile(target) && Files.size(target) == bytes.length
+                && hash.equals(existingHash(target))) {
+            skippedCount.incrementAndGet();
+            return false;
+        }
+
+        Path dir = target.getParent();
+        Files.createDirectories(dir);
+        // not Files.createTempFile: that would leave the output with owner-only permissions
+        Path temp = dir.resolve("." + target.getFileName() + "." + Thread.currentThread().getId()
+                + Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            writeFully(temp, bytes);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        hashes.put(target, new HashRecord(hash, bytes.length, Files.getLastModifiedTime(target).toMillis()));
+        writtenCount.incrementAndGet();
+        return true;
+    }
+
+    public int getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public int getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * Saves the content hashes to the index file given in the constructor.
+     */
+    public void saveHashIndex() throws IOException {
+        if (hashIndexFile == null) return;
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Path, HashRecord> entry : hashes.entrySet()) {
+            HashRecord record = entry.getValue();
+            lines.add(record.hash + " " + record.size + " " + record.lastModified + " " + entry.getKey());
+        }
+        Files.createDirectories(hashIndexFile.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(hashIndexFile.toAbsolutePath().getParent(), ".hashes", ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, hashIndexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void loadHashIndex() {
+        if (!Files.isRegularFile(hashIndexFile)) return;
+        try {
+            for (String line : Files.readAllLines(hashIndexFile, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(" ", 4);
+                if (parts.length < 4) continue;
+                hashes.put(Paths.get(parts[3]),
+                        new HashRecord(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // a broken index only costs re-reading the outputs
+            hashes.clear();
+        }
+    }
+
+    private String existingHash(Path target) throws IOException {
+        long size = Files.size(target);
+        long lastModified = Files.getLastModifiedTime(target).toMillis();
+        HashRecord record = hashes.get(target);
+        if (record != null && record.size == size && record.lastModified == lastModified) {
+            return record.hash;
+        }
+        String hash = hashFile(target);
+        hashes.put(target, new HashRecord(hash, size, lastModified));
+        return hash;
+    }
+
+    private void writeFully(Path file, byte[] bytes) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                buffer.clear();
+                int length = Math.min(buffer.capacity(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                offset += length;
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private String hashFile(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String hash(byte[] bytes) {
+        return toHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static class HashRecord {
+        final String hash;
+        final long size;
+        final long lastModified;
+
+        HashRecord(String hash, long size, long lastModified) {
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
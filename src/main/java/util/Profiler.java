@@ -0,0 +1,246 @@
+package util;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-file, per-stage timing of a conversion run.
+ * <p>
+ * Code doing a stage brackets it with {@link #begin()} / {@link #end(Stage, long)}, the time goes to the file the thread
+ * is working on ({@link #enter(FileProfile)}). Without a current file both calls are no-ops.
+ * <p>
+ * Times are self times measured per thread: a stage nested in another one on the same thread (RESOLVE inside EMIT) is
+ * taken out of the outer stage when it ends, and time a thread only waits for other threads ({@link #endWait(long)})
+ * goes to no stage. So with members printed on several threads EMIT and RESOLVE are the sums of what every thread
+ * spent in them, not wall-clock times.
+ */
+public class Profiler {
+    public enum Stage {
+        READ, PARSE, RESOLVE, EMIT, WRITE;
+
+        String frameName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final ThreadLocal<FileProfile> CURRENT = new ThreadLocal<>();
+    /**
+     * Per thread, the time of the nested stages ended so far in each open stage, innermost last.
+     */
+    private static final ThreadLocal<NestedTimes> NESTED = ThreadLocal.withInitial(NestedTimes::new);
+
+    private final Map<String, FileProfile> files = new ConcurrentHashMap<>();
+
+    public FileProfile getFile(String path) {
+        return files.computeIfAbsent(path, FileProfile::new);
+    }
+
+    public Collection<FileProfile> getFiles() {
+        return files.values();
+    }
+
+    /**
+     * Makes profile the file this thread works on, until the returned scope is closed.
+     */
+    public static Scope enter(FileProfile profile) {
+        FileProfile previous = CURRENT.get();
+        CURRENT.set(profile);
+        return new Scope(previous, NESTED.get().depth);
+    }
+
+    public static FileProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return start time to give to {@link #end(Stage, long)}, 0 when this thread isn't profiled
+     */
+    public static long begin() {
+        if (CURRENT.get() == null) return 0L;
+        NESTED.get().push();
+        return System.nanoTime();
+    }
+
+    public static void end(Stage stage, long begin) {
+        if (begin == 0L) return;
+        long elapsed = System.nanoTime() - begin;
+        long selfNanos = elapsed - NESTED.get().pop(elapsed);
+        FileProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.add(stage, selfNanos);
+        }
+    }
+
+    /**
+     * Ends a wait for work done on other threads, begun with {@link #begin()}: the time is taken out of the enclosing
+     * stage but goes to none, the other threads record their own.
+     */
+    public static void endWait(long begin) {
+        if (begin == 0L) return;
+        NESTED.get().pop(System.nanoTime() - begin);
+    }
+
+    public void printReport(PrintStream out, int topN) {
+        List<FileProfile> profiles = new ArrayList<>(files.values());
+        long total = 0;
+        for (FileProfile profile : profiles) {
+            total += profile.getTotalNanos();
+        }
+        out.println("==== java2ts profile: " + profiles.size() + " files, " + formatMillis(total) + " ====");
+        out.println(String.format(Locale.ROOT, "%-8s %12s %7s %10s %10s %10s %10s",
+                "stage", "total", "share", "p50", "p90", "p99", "max"));
+        for (Stage stage : Stage.values()) {
+            long[] times = new long[profiles.size()];
+            long stageTotal = 0;
+            for (int i = 0; i < times.length; i++) {
+                times[i] = profiles.get(i).getNanos(stage);
+                stageTotal += times[i];
+            }
+            java.util.Arrays.sort(times);
+            out.println(String.format(Locale.ROOT, "%-8s %12s %6.1f%% %10s %10s %10s %10s",
+                    stage.frameName(), formatMillis(stageTotal), total == 0 ? 0 : stageTotal * 100.0 / total,
+                    formatMillis(percentile(times, 50)), formatMillis(percentile(times, 90)),
+                    formatMillis(percentile(times, 99)), formatMillis(times.length == 0 ? 0 : times[times.length - 1])));
+        }
+
+        profiles.sort(Comparator.comparingLong(FileProfile::getTotalNanos).reversed());
+        out.println("---- slowest " + Math.min(topN, profiles.size()) + " files ----");
+        for (int i = 0; i < topN && i < profiles.size(); i++) {
+            FileProfile profile = profiles.get(i);
+            Stage dominant = profile.getDominantStage();
+            out.println(String.format(Locale.ROOT, "%12s  %-7s %s",
+                    formatMillis(profile.getTotalNanos()), dominant.frameName(), profile.getPath()));
+        }
+    }
+
+    /**
+     * Writes "java2ts;file;stage micros" lines, as read by flamegraph.pl, speedscope and similar tools.
+     */
+    public void writeCollapsedStacks(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (FileProfile profile : files.values()) {
+            String fileFrame = profile.getPath().replace(';', '_').replace(' ', '_');
+            for (Stage stage : Stage.values()) {
+                long micros = profile.getNanos(stage) / 1000;
+                if (micros == 0) continue;
+                String stack = stage == Stage.RESOLVE
+                        ? "java2ts;" + fileFrame + ";" + Stage.EMIT.frameName() + ";" + stage.frameName()
+                        : "java2ts;" + fileFrame + ";" + stage.frameName();
+                lines.add(stack + " " + micros);
+            }
+        }
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+
+    private static class NestedTimes {
+        private long[] nanos = new long[8];
+        private int depth;
+
+        void push() {
+            if (depth == nanos.length) {
+                nanos = java.util.Arrays.copyOf(nanos, depth * 2);
+            }
+            nanos[depth++] = 0L;
+        }
+
+        /**
+         * Closes the innermost stage, which took elapsed, and counts it as nested time of the one around it.
+         *
+         * @return the nested time of the closed stage
+         */
+        long pop(long elapsed) {
+            long nested = nanos[--depth];
+            if (depth > 0) {
+                nanos[depth - 1] += elapsed;
+            }
+            return nested;
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+        private final FileProfile previous;
+        private final int depth;
+
+        private Scope(FileProfile previous, int depth) {
+            this.previous = previous;
+            this.depth = depth;
+        }
+
+        @Override
+        public void close() {
+            // stages left open by an exception
+            NESTED.get().depth = depth;
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static class FileProfile {
+        private final String path;
+        private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+
+        FileProfile(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void add(Stage stage, long stageNanos) {
+            nanos.addAndGet(stage.ordinal(), stageNanos);
+        }
+
+        /**
+         * @return self time spent in stage on all threads, EMIT without the RESOLVE done inside it
+         */
+        public long getNanos(Stage stage) {
+            return nanos.get(stage.ordinal());
+        }
+
+        public long getTotalNanos() {
+            long total = 0;
+            for (Stage stage : Stage.values()) {
+                total += getNanos(stage);
+            }
+            return total;
+        }
+
+        public Stage getDominantStage() {
+            Stage dominant = Stage.READ;
+            for (Stage stage : Stage.values()) {
+                if (getNanos(stage) > getNanos(dominant)) {
+                    dominant = stage;
+                }
+            }
+            return dominant;
+        }
+    }
+}
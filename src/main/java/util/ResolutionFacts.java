@@ -0,0 +1,164 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The class lookups a conversion depended on: which class names exist and which classes a package has.
+ * Type resolution is deterministic for a given source and these facts, so a cached output stays valid
+ * as long as every recorded fact still evaluates to the same value.
+ */
+public class ResolutionFacts {
+    private static final ThreadLocal<ResolutionFacts> CURRENT = new ThreadLocal<>();
+    private static final String CLASS_FACT = "C:";
+    private static final String PACKAGE_FACT = "P:";
+    private static final String INDEXED_FACT = "I:";
+
+    private final Map<String, String> facts = new ConcurrentSkipListMap<>();
+
+    /**
+     * Runs work with facts recording the lookups made on this thread.
+     */
+    public static <T> T record(ResolutionFacts facts, Supplier<T> work) {
+        ResolutionFacts previous = CURRENT.get();
+        CURRENT.set(facts);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the facts recording on this thread, null when nothing records
+     */
+    public static ResolutionFacts current() {
+        return CURRENT.get();
+    }
+
+    public static Class<?> forName(String className) throws ClassNotFoundException {
+        ResolutionFacts facts = CURRENT.get();
+        long begin = System.nanoTime();
+        try {
+            Class<?> c = Class.forName(className);
+            if (facts != null) facts.facts.put(CLASS_FACT + className, "1");
+            return c;
+        } catch (ClassNotFoundException e) {
+            if (facts != null) facts.facts.put(CLASS_FACT + className, "0");
+            throw e;
+        } finally {
+            ConverterStats.get().forNameTime(System.nanoTime() - begin);
+        }
+    }
+
+    public static List<Class<?>> getPackageClasses(String packageName) {
+        List<Class<?>> classes = ClassUtil.getClasses(packageName);
+        ResolutionFacts facts = CURRENT.get();
+        if (facts != null) facts.facts.put(PACKAGE_FACT + packageName, hashClassNames(classes));
+        return classes;
+    }
+
+    /**
+     * @return the class of the package (or a sub package, as {@link ClassUtil#getClasses} scans) named simpleName,
+     * null if none. Looked up in {@link ClassIndex#shared()} when there is one, else the package is scanned
+     */
+    public static Class<?> findPackageClass(String packageName, String simpleName) {
+        ClassIndex index = ClassIndex.shared();
+        if (index == null) {
+            for (Class<?> packageClass : getPackageClasses(packageName)) {
+                if (packageClass.getSimpleName().equals(simpleName)) {
+                    return packageClass;
+                }
+            }
+            return null;
+        }
+        String className = index.findInPackage(packageName, simpleName);
+        ResolutionFacts facts = CURRENT.get();
+        if (facts != null) facts.facts.put(INDEXED_FACT + packageName + "/" + simpleName, className != null ? className : "");
+        if (className == null) return null;
+        try {
+            return forName(className);
+        } catch (ClassNotFoundException | LinkageError e) {
+            // indexed from another class path than the one running
+            return null;
+        }
+    }
+
+    /**
+     * Adds the facts of other, for work whose lookups other recorded earlier and that is reused instead of redone.
+     */
+    public void addAll(ResolutionFacts other) {
+        facts.putAll(other.facts);
+    }
+
+    public boolean isEmpty() {
+        return facts.isEmpty();
+    }
+
+    /**
+     * @param evaluated facts already evaluated in this JVM, shared between checks so each fact is looked up once
+     */
+    public boolean isStillValid(Map<String, String> evaluated) {
+        for (Map.Entry<String, String> fact : facts.entrySet()) {
+            String value = evaluated.computeIfAbsent(fact.getKey(), ResolutionFacts::evaluate);
+            if (!value.equals(fact.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String evaluate(String fact) {
+        if (fact.startsWith(CLASS_FACT)) {
+            try {
+                Class.forName(fact.substring(CLASS_FACT.length()));
+                return "1";
+            } catch (ClassNotFoundException | LinkageError e) {
+                return "0";
+            }
+        }
+        if (fact.startsWith(PACKAGE_FACT)) {
+            return hashClassNames(ClassUtil.getClasses(fact.substring(PACKAGE_FACT.length())));
+        }
+        if (fact.startsWith(INDEXED_FACT)) {
+            int slash = fact.lastIndexOf('/');
+            ClassIndex index = ClassIndex.shared();
+            if (index == null) return "";
+            String className = index.findInPackage(fact.substring(INDEXED_FACT.length(), slash), fact.substring(slash + 1));
+            return className != null ? className : "";
+        }
+        return "";
+    }
+
+    private static String hashClassNames(List<Class<?>> classes) {
+        String names = classes.stream().map(Class::getName).sorted().collect(Collectors.joining(","));
+        return OutputWriter.hash(names.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String serialize() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> fact : facts.entrySet()) {
+            sb.append(fact.getKey()).append('\t').append(fact.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public static ResolutionFacts parse(String serialized) {
+        ResolutionFacts resolutionFacts = new ResolutionFacts();
+        for (String line : serialized.split("\n")) {
+            int tab = line.lastIndexOf('\t');
+            if (tab > 0) {
+                resolutionFacts.facts.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return resolutionFacts;
+    }
+}
@@ -0,0 +1,141 @@
+package util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What a conversion run did per file: source size, warnings and stage times. A shard process writes its report
+ * to a file, the parent reads and merges them.
+ * <p>
+ * File format, one record per line, tab separated, with \t, \n and \\ escaped in values:
+ * F path sourceBytes / W path warning / S path stage nanos
+ */
+public class RunReport {
+    private final Map<String, Long> sourceBytes = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> warnings = new ConcurrentHashMap<>();
+    private final Profiler profiler;
+
+    public RunReport() {
+        this(new Profiler());
+    }
+
+    public RunReport(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public Profiler getProfiler() {
+        return profiler;
+    }
+
+    public void addFile(String path, long bytes, List<String> fileWarnings) {
+        sourceBytes.put(path, bytes);
+        if (!fileWarnings.isEmpty()) {
+            warnings.computeIfAbsent(path, p -> Collections.synchronizedList(new ArrayList<>())).addAll(fileWarnings);
+        }
+    }
+
+    public int getFileCount() {
+        return sourceBytes.size();
+    }
+
+    public long getSourceBytes() {
+        long total = 0;
+        for (long bytes : sourceBytes.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * @return warnings by file
+     */
+    public Map<String, List<String>> getWarnings() {
+        return warnings;
+    }
+
+    public int getWarningCount() {
+        int count = 0;
+        for (List<String> fileWarnings : warnings.values()) {
+            count += fileWarnings.size();
+        }
+        return count;
+    }
+
+    public void merge(RunReport other) {
+        sourceBytes.putAll(other.sourceBytes);
+        other.warnings.forEach((path, fileWarnings) ->
+                warnings.computeIfAbsent(path, p -> Collections.synchronizedList(new ArrayList<>())).addAll(fileWarnings));
+        for (Profiler.FileProfile otherProfile : other.profiler.getFiles()) {
+            Profiler.FileProfile profile = profiler.getFile(otherProfile.getPath());
+            for (Profiler.Stage stage : Profiler.Stage.values()) {
+                profile.add(stage, otherProfile.getNanos(stage));
+            }
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        sourceBytes.forEach((path, bytes) -> lines.add("F\t" + escape(path) + "\t" + bytes));
+        warnings.forEach((path, fileWarnings) -> {
+            for (String warning : fileWarnings) {
+                lines.add("W\t" + escape(path) + "\t" + escape(warning));
+            }
+        });
+        for (Profiler.FileProfile profile : profiler.getFiles()) {
+            for (Profiler.Stage stage : Profiler.Stage.values()) {
+                lines.add("S\t" + escape(profile.getPath()) + "\t" + stage + "\t" + profile.getNanos(stage));
+            }
+        }
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    public static RunReport read(Path file) throws IOException {
+        RunReport report = new RunReport();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t", -1);
+            switch (parts[0]) {
+                case "F":
+                    report.sourceBytes.put(unescape(parts[1]), Long.parseLong(parts[2]));
+                    break;
+                case "W":
+                    report.warnings.computeIfAbsent(unescape(parts[1]), p -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(unescape(parts[2]));
+                    break;
+                case "S":
+                    report.profiler.getFile(unescape(parts[1])).add(Profiler.Stage.valueOf(parts[2]), Long.parseLong(parts[3]));
+                    break;
+                default:
+                    throw new IOException("bad run report line in " + file + ": " + line);
+            }
+        }
+        return report;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
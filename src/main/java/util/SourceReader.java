@@ -0,0 +1,151 @@
+package util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads java source files in one bulk read into a pooled direct buffer, or as a memory map
+ * when they don't fit in one, then decodes them with the charset of their source root.
+ * A byte order mark overrides the configured charset and is not part of the content.
+ */
+public class SourceReader {
+    private final Charset defaultCharset;
+    private final BufferPool bufferPool;
+    private final Map<Path, Charset> rootCharsets = new ConcurrentHashMap<>();
+
+    public SourceReader() {
+        this(StandardCharsets.UTF_8, BufferPool.shared());
+    }
+
+    public SourceReader(Charset defaultCharset, BufferPool bufferPool) {
+        this.defaultCharset = defaultCharset;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Files under sourceRoot are decoded with charset, the deepest matching root wins.
+     */
+    public SourceReader setCharset(Path sourceRoot, Charset charset) {
+        rootCharsets.put(sourceRoot.toAbsolutePath().normalize(), charset);
+        return this;
+    }
+
+    public Charset getCharset(Path file) {
+        Path path = file.toAbsolutePath().normalize();
+        Charset charset = null;
+        int matchLength = -1;
+        for (Map.Entry<Path, Charset> entry : rootCharsets.entrySet()) {
+            Path root = entry.getKey();
+            if (path.startsWith(root) && root.getNameCount() > matchLength) {
+                charset = entry.getValue();
+                matchLength = root.getNameCount();
+            }
+        }
+        return charset != null ? charset : defaultCharset;
+    }
+
+    /**
+     * @return the one charset files are decoded with, for tools that take a single charset such as javac
+     * @throws IllegalArgumentException if their source roots have different charsets
+     */
+    public Charset getCharset(Collection<Path> files) {
+        Charset charset = defaultCharset;
+        Path first = null;
+        for (Path file : files) {
+            Charset fileCharset = getCharset(file);
+            if (first == null) {
+                charset = fileCharset;
+                first = file;
+            } else if (!fileCharset.equals(charset)) {
+                throw new IllegalArgumentException(first + " is read as " + charset + " but " + file + " as " + fileCharset
+                        + ", they can't be analyzed together");
+            }
+        }
+        return charset;
+    }
+
+    public CharBuffer read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ConverterStats.get().bytesRead(size);
+            if (size > bufferPool.getBufferSize()) {
+                return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), getCharset(file));
+            }
+            ByteBuffer buffer = bufferPool.acquire();
+            try {
+                readFully(channel, buffer);
+                buffer.flip();
+                return decode(buffer, getCharset(file));
+            } finally {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads everything from reader, without closing it.
+     */
+    public static CharBuffer read(Reader reader) throws IOException {
+        CharBuffer buffer = CharBuffer.allocate(8192);
+        while (reader.read(buffer) != -1) {
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                buffer = CharBuffer.allocate(buffer.capacity() * 2).put(buffer);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            // read until full or end of file
+        }
+    }
+
+    static CharBuffer decode(ByteBuffer bytes, Charset charset) throws CharacterCodingException {
+        Charset bomCharset = detectBom(bytes);
+        if (bomCharset != null) {
+            charset = bomCharset;
+        }
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        return decoder.decode(bytes);
+    }
+
+    /**
+     * @return the charset the byte order mark stands for, with the buffer positioned after it, or null without a mark
+     */
+    private static Charset detectBom(ByteBuffer bytes) {
+        int start = bytes.position();
+        int remaining = bytes.remaining();
+        if (remaining >= 3 && (bytes.get(start) & 0xFF) == 0xEF && (bytes.get(start + 1) & 0xFF) == 0xBB
+                && (bytes.get(start + 2) & 0xFF) == 0xBF) {
+            bytes.position(start + 3);
+            return StandardCharsets.UTF_8;
+        }
+        if (remaining >= 2 && (bytes.get(start) & 0xFF) == 0xFE && (bytes.get(start + 1) & 0xFF) == 0xFF) {
+            bytes.position(start + 2);
+            return StandardCharsets.UTF_16BE;
+        }
+        if (remaining >= 2 && (bytes.get(start) & 0xFF) == 0xFF && (bytes.get(start + 1) & 0xFF) == 0xFE) {
+            bytes.position(start + 2);
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+}